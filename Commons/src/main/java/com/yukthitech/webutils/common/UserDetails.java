@@ -23,6 +23,7 @@
 
 package com.yukthitech.webutils.common;
 
+import java.io.Serializable;
 import java.util.Set;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -33,8 +34,10 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
  * @author akiran
  * @param <R> Type of roles used by application.
  */
-public class UserDetails<R extends Enum<R>>
+public class UserDetails<R extends Enum<R>> implements Serializable
 {
+	private static final long serialVersionUID = 1L;
+
 	/**
 	 * Unique user id.
 	 */
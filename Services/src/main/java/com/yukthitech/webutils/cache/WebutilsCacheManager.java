@@ -1,7 +1,7 @@
 package com.yukthitech.webutils.cache;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.stereotype.Component;
 
@@ -18,7 +18,7 @@ public class WebutilsCacheManager
 	/**
 	 * Map to manage cache.
 	 */
-	private Map<String, Object> cacheMap = new HashMap<>();
+	private Map<String, Object> cacheMap = new ConcurrentHashMap<>();
 
 	/**
 	 * Used to support dynamic locks.
@@ -32,6 +32,12 @@ public class WebutilsCacheManager
 	 */
 	public void set(String key, Object value)
 	{
+		if(value == null)
+		{
+			cacheMap.remove(key);
+			return;
+		}
+		
 		cacheMap.put(key, value);
 	}
 	
@@ -1,11 +1,13 @@
 package com.yukthitech.webutils.security;
 
 import java.util.Date;
+import java.util.List;
 
 import com.yukthitech.persistence.ICrudRepository;
 import com.yukthitech.persistence.repository.annotations.Condition;
 import com.yukthitech.persistence.repository.annotations.Field;
 import com.yukthitech.persistence.repository.annotations.Operator;
+import com.yukthitech.persistence.repository.search.SearchQuery;
 
 /**
  * Repository to maintain sessions.
@@ -40,4 +42,20 @@ public interface ISessionRepository extends ICrudRepository<SessionEntity>
 	 * @return Number of sessions deleted.
 	 */
 	public int deleteOldSessions(@Condition(value = "lastAccessedOn", op = Operator.LT) Date lastAccessedOn);
+	
+	/**
+	 * Fetches ids of sessions matching specified query. Used to clean up old sessions chunk by chunk.
+	 * @param searchQuery Query with conditions, order and limit.
+	 * @return Matching session ids.
+	 */
+	public List<SessionIdResult> fetchSessionIds(SearchQuery searchQuery);
+	
+	/**
+	 * Deletes sessions which are older than specified accessed on time and whose id is less than or equal to specified id.
+	 * @param lastAccessedOn Access time before which which sessions should be deletes.
+	 * @param maxId Max id of sessions to be deleted.
+	 * @return Number of sessions deleted.
+	 */
+	public int deleteOldSessionsUpTo(@Condition(value = "lastAccessedOn", op = Operator.LT) Date lastAccessedOn, 
+			@Condition(value = "id", op = Operator.LE) Long maxId);
 }
@@ -0,0 +1,27 @@
+package com.yukthitech.webutils.security;
+
+/**
+ * Store used by {@link SessionManagementService} to cache active sessions. Implementations
+ * should be thread safe.
+ */
+public interface ISessionStore
+{
+	/**
+	 * Fetches session with specified token.
+	 * @param sessionToken Token of session to fetch.
+	 * @return Matching session, null if not present or expired from store.
+	 */
+	public SessionEntity get(String sessionToken);
+	
+	/**
+	 * Adds or replaces specified session in the store.
+	 * @param sessionEntity Session to store.
+	 */
+	public void put(SessionEntity sessionEntity);
+	
+	/**
+	 * Removes session with specified token.
+	 * @param sessionToken Token of session to remove.
+	 */
+	public void remove(String sessionToken);
+}
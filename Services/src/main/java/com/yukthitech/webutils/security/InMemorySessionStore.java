@@ -0,0 +1,134 @@
+package com.yukthitech.webutils.security;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Concurrent in-memory session store, bounded by size. Entries expire after configured time
+ * from their last put. Expired entries are removed lazily on access and by {@link #purgeExpired()}.
+ * When the size limit is crossed, entries closest to expiry are evicted.
+ */
+public class InMemorySessionStore implements ISessionStore
+{
+	/**
+	 * Session along with time (epoch millis) at which it expires from the store.
+	 */
+	private static class Entry
+	{
+		/**
+		 * Session being stored.
+		 */
+		private SessionEntity session;
+		
+		/**
+		 * Time at which entry expires.
+		 */
+		private long expiresAt;
+		
+		/**
+		 * Instantiates a new entry.
+		 * @param session Session being stored.
+		 * @param expiresAt Time at which entry expires.
+		 */
+		private Entry(SessionEntity session, long expiresAt)
+		{
+			this.session = session;
+			this.expiresAt = expiresAt;
+		}
+	}
+	
+	/**
+	 * Sessions by token.
+	 */
+	private Map<String, Entry> sessions = new ConcurrentHashMap<>();
+	
+	/**
+	 * Max number of sessions to maintain.
+	 */
+	private int maxSize;
+	
+	/**
+	 * Time in millis after which entries expire.
+	 */
+	private long ttlMillis;
+	
+	/**
+	 * Instantiates a new in memory session store.
+	 * @param maxSize Max number of sessions to maintain.
+	 * @param ttlMillis Time in millis after which entries expire.
+	 */
+	public InMemorySessionStore(int maxSize, long ttlMillis)
+	{
+		this.maxSize = maxSize;
+		this.ttlMillis = ttlMillis;
+	}
+
+	@Override
+	public SessionEntity get(String sessionToken)
+	{
+		Entry entry = sessions.get(sessionToken);
+		
+		if(entry == null)
+		{
+			return null;
+		}
+		
+		if(entry.expiresAt < System.currentTimeMillis())
+		{
+			sessions.remove(sessionToken, entry);
+			return null;
+		}
+		
+		return entry.session;
+	}
+
+	@Override
+	public void put(SessionEntity sessionEntity)
+	{
+		sessions.put(sessionEntity.getSessionToken(), new Entry(sessionEntity, System.currentTimeMillis() + ttlMillis));
+		
+		if(sessions.size() > maxSize)
+		{
+			evict();
+		}
+	}
+
+	@Override
+	public void remove(String sessionToken)
+	{
+		sessions.remove(sessionToken);
+	}
+	
+	/**
+	 * Removes expired entries.
+	 */
+	public void purgeExpired()
+	{
+		long now = System.currentTimeMillis();
+		sessions.values().removeIf(entry -> entry.expiresAt < now);
+	}
+	
+	/**
+	 * Brings down the size to 90% of max size, so that eviction is not needed on every put.
+	 */
+	private synchronized void evict()
+	{
+		purgeExpired();
+		
+		int excess = sessions.size() - (maxSize * 9 / 10);
+		
+		if(excess <= 0)
+		{
+			return;
+		}
+		
+		sessions.entrySet().stream()
+			.sorted(Comparator.comparingLong(mapEntry -> mapEntry.getValue().expiresAt))
+			.limit(excess)
+			.map(Map.Entry::getKey)
+			.collect(Collectors.toList())
+			.forEach(sessions::remove);
+	}
+}
@@ -1,5 +1,6 @@
 package com.yukthitech.webutils.security;
 
+import java.io.Serializable;
 import java.util.Date;
 
 import javax.persistence.Column;
@@ -17,15 +18,17 @@ import com.yukthitech.persistence.annotations.Transient;
 import com.yukthitech.webutils.common.UserDetails;
 
 /**
- * Entity to maintain sessions.
+ * Entity to maintain sessions. Serializable, so that sessions can be maintained in distributed caches.
  * @author akiran
  */
 @Indexes({
 	@Index(name = "SESSION_TOKEN", fields = {"sessionToken"})
 	})
 @Table(name = "WEBUTILS_USER_SESSION")
-public class SessionEntity
+public class SessionEntity implements Serializable
 {
+	private static final long serialVersionUID = 1L;
+
 	/**
 	 * Primary key of the entity.
 	 */
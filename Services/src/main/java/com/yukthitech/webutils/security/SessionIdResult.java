@@ -0,0 +1,36 @@
+package com.yukthitech.webutils.security;
+
+import com.yukthitech.persistence.repository.annotations.Field;
+
+/**
+ * Id of a session, used to clean up old sessions chunk by chunk.
+ * @author akiran
+ */
+public class SessionIdResult
+{
+	/**
+	 * Id of the session.
+	 */
+	@Field("id")
+	private Long id;
+
+	/**
+	 * Gets the id of the session.
+	 *
+	 * @return the id of the session
+	 */
+	public Long getId()
+	{
+		return id;
+	}
+
+	/**
+	 * Sets the id of the session.
+	 *
+	 * @param id the new id of the session
+	 */
+	public void setId(Long id)
+	{
+		this.id = id;
+	}
+}
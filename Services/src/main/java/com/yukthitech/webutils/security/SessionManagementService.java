@@ -1,6 +1,8 @@
 package com.yukthitech.webutils.security;
 
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
@@ -9,10 +11,18 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Service;
 
+import com.yukthitech.persistence.OrderByField;
+import com.yukthitech.persistence.repository.annotations.Operator;
+import com.yukthitech.persistence.repository.annotations.OrderByType;
+import com.yukthitech.persistence.repository.search.SearchCondition;
+import com.yukthitech.persistence.repository.search.SearchQuery;
 import com.yukthitech.utils.exceptions.InvalidStateException;
-import com.yukthitech.webutils.cache.WebutilsCacheManager;
+import com.yukthitech.webutils.cache.WebutilsSpringCacheManager;
 import com.yukthitech.webutils.common.UserDetails;
 import com.yukthitech.webutils.services.WebutilsRepositoryFactory;
 import com.yukthitech.webutils.services.task.AsyncTaskService;
@@ -64,10 +74,59 @@ public class SessionManagementService
 	private int sessionUpdateGap;
 	
 	/**
-	 * Used for caching sessions.
+	 * Session store to be used - "memory" for node local store or "shared" for store
+	 * backed by distributed spring cache manager.
+	 */
+	@Value("${webutils.session.store:memory}")
+	private String sessionStoreType;
+	
+	/**
+	 * Max number of sessions to be maintained by in-memory store.
+	 */
+	@Value("${webutils.session.store.maxSize:10000}")
+	private int sessionStoreMaxSize;
+	
+	/**
+	 * Name of spring cache used by shared store.
+	 */
+	@Value("${webutils.session.store.cacheName:webutilsSessions}")
+	private String sessionCacheName;
+	
+	/**
+	 * Bean name of distributed spring cache manager used by shared store.
+	 */
+	@Value("${webutils.session.store.cacheManager:}")
+	private String sessionCacheManagerName;
+	
+	/**
+	 * Max number of old sessions to be deleted in single statement during cleanup.
+	 */
+	@Value("${webutils.session.cleanup.chunkSize:1000}")
+	private int cleanupChunkSize;
+	
+	/**
+	 * Pause in millis between cleanup chunks, so that session table is not locked continuously.
+	 */
+	@Value("${webutils.session.cleanup.pauseMillis:200}")
+	private long cleanupPauseMillis;
+	
+	/**
+	 * Application specific session store, if any. When specified, this will be used
+	 * instead of configured store.
+	 */
+	@Autowired(required = false)
+	private ISessionStore customSessionStore;
+	
+	/**
+	 * Used to fetch cache manager used by shared store.
 	 */
 	@Autowired
-	private WebutilsCacheManager cacheManager;
+	private ApplicationContext applicationContext;
+	
+	/**
+	 * Used for caching sessions.
+	 */
+	private ISessionStore sessionStore;
 	
 	/**
 	 * To schedule background thread which would clean old/expired sessions.
@@ -91,18 +150,111 @@ public class SessionManagementService
 		
 		this.sessionRepository = repositoryFactory.getRepository(ISessionRepository.class);
 		this.userRepository = repositoryFactory.getRepository(IUserRepository.class);
+		this.sessionStore = createSessionStore();
 		
 		this.asyncTaskService.scheduleWithFixedDelay("Old-Session-Cleaner", this::cleanOldSessions, sessionTimeout * 2, sessionTimeout * 2, TimeUnit.SECONDS);
 	}
 	
 	/**
-	 * Cleans old and expired sessions.
+	 * Creates session store based on configuration.
+	 * @return Session store to use.
+	 */
+	private ISessionStore createSessionStore()
+	{
+		if(customSessionStore != null)
+		{
+			logger.info("Using custom session store: {}", customSessionStore.getClass().getName());
+			return customSessionStore;
+		}
+		
+		if("shared".equals(sessionStoreType))
+		{
+			return createSharedSessionStore();
+		}
+		
+		InMemorySessionStore inMemoryStore = new InMemorySessionStore(sessionStoreMaxSize, sessionTimeout * MILLIS_PER_SEC);
+		this.asyncTaskService.scheduleWithFixedDelay("Session-Store-Purger", inMemoryStore::purgeExpired, sessionTimeout, sessionTimeout, TimeUnit.SECONDS);
+		return inMemoryStore;
+	}
+	
+	/**
+	 * Creates shared session store using cache from explicitly configured cache manager. Node local
+	 * cache managers (like webutils spring cache manager) are not accepted, as sessions would not be shared
+	 * and could get evicted by lru policy.
+	 * @return Shared session store.
+	 */
+	private ISessionStore createSharedSessionStore()
+	{
+		if(sessionCacheManagerName == null || sessionCacheManagerName.trim().length() == 0)
+		{
+			throw new InvalidStateException("Shared session store is configured, but no distributed cache manager bean name is specified "
+					+ "using property: webutils.session.store.cacheManager");
+		}
+		
+		if(!applicationContext.containsBean(sessionCacheManagerName))
+		{
+			throw new InvalidStateException("No cache manager bean found with name '{}' for shared session store", sessionCacheManagerName);
+		}
+		
+		CacheManager cacheManager = applicationContext.getBean(sessionCacheManagerName, CacheManager.class);
+		
+		if(cacheManager instanceof WebutilsSpringCacheManager)
+		{
+			throw new InvalidStateException("Cache manager '{}' is node local and cannot be used for shared session store", sessionCacheManagerName);
+		}
+		
+		Cache cache = cacheManager.getCache(sessionCacheName);
+		
+		if(cache == null)
+		{
+			throw new InvalidStateException("Cache manager '{}' does not provide cache '{}' for shared session store", 
+					sessionCacheManagerName, sessionCacheName);
+		}
+		
+		logger.info("Using shared session store with cache '{}' of cache manager: {}", sessionCacheName, sessionCacheManagerName);
+		return new SharedSessionStore(cache);
+	}
+	
+	/**
+	 * Cleans old and expired sessions, chunk by chunk.
 	 */
 	private void cleanOldSessions()
 	{
 		Date maxAccessTime = DateUtils.addSeconds(new Date(), 0 - sessionTimeout);
+		int deletedCount = 0;
+		
+		while(true)
+		{
+			SearchQuery searchQuery = new SearchQuery();
+			searchQuery.addCondition(new SearchCondition("lastAccessedOn", Operator.LT, maxAccessTime));
+			searchQuery.setOrderByFields(Arrays.asList(new OrderByField("id", OrderByType.ASC)));
+			searchQuery.setResultsLimit(cleanupChunkSize);
+			
+			List<SessionIdResult> sessionIds = sessionRepository.fetchSessionIds(searchQuery);
+			
+			if(sessionIds.isEmpty())
+			{
+				break;
+			}
+			
+			deletedCount += sessionRepository.deleteOldSessionsUpTo(maxAccessTime, sessionIds.get(sessionIds.size() - 1).getId());
+			
+			if(sessionIds.size() < cleanupChunkSize)
+			{
+				break;
+			}
+			
+			try
+			{
+				Thread.sleep(cleanupPauseMillis);
+			}
+			catch(InterruptedException ex)
+			{
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
 		
-		int deletedCount = sessionRepository.deleteOldSessions(maxAccessTime);
 		logger.debug("Deleted old sessions. Count: {}", deletedCount);
 	}
 	
@@ -111,7 +263,7 @@ public class SessionManagementService
 	 * @param userDetails User details for which new session needs to be created.
 	 * @return New session id.
 	 */
-	public synchronized String startSession(UserDetails<?> userDetails)
+	public String startSession(UserDetails<?> userDetails)
 	{
 		Date createdOn = new Date();
 		String sessionToken = UUID.randomUUID().toString();
@@ -124,7 +276,7 @@ public class SessionManagementService
 			throw new InvalidStateException("Failed to create new session. Please check log for more details.");
 		}
 		
-		cacheManager.set(sessionToken, sessionEntity);
+		sessionStore.put(sessionEntity);
 		
 		return sessionToken;
 	}
@@ -151,7 +303,7 @@ public class SessionManagementService
 		sessionEntity.setLastAccessedOn(now);
 		
 		sessionRepository.updateExpiryTime(now, sessionEntity.getSessionToken());
-		cacheManager.set(sessionEntity.getSessionToken(), sessionEntity);
+		sessionStore.put(sessionEntity);
 	}
 
 	/**
@@ -161,7 +313,7 @@ public class SessionManagementService
 	 */
 	private SessionEntity getSession(String sessionToken)
 	{
-		SessionEntity sessionEntity = (SessionEntity) cacheManager.get(sessionToken);
+		SessionEntity sessionEntity = sessionStore.get(sessionToken);
 		
 		if(sessionEntity == null)
 		{
@@ -174,7 +326,7 @@ public class SessionManagementService
 				
 				sessionEntity.setUserDetails(userDetails);
 
-				cacheManager.set(sessionToken, sessionEntity);
+				sessionStore.put(sessionEntity);
 			}
 		}
 		
@@ -201,7 +353,7 @@ public class SessionManagementService
 	 */
 	public void clearSession(String sessionToken)
 	{
-		cacheManager.get(sessionToken);
+		sessionStore.remove(sessionToken);
 		sessionRepository.deleteByToken(sessionToken);
 	}
 	
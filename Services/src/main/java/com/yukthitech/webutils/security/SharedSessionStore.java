@@ -0,0 +1,52 @@
+package com.yukthitech.webutils.security;
+
+import org.springframework.cache.Cache;
+
+import com.yukthitech.utils.exceptions.InvalidArgumentException;
+
+/**
+ * Session store backed by a spring {@link Cache}, which can be shared across nodes when cache manager
+ * is configured with a distributed cache provider. Expiry and serialization of entries are managed by
+ * the underlying cache. Session entities (along with user details) are {@link java.io.Serializable}, so
+ * default java serializers of distributed caches can be used. Applications extending user details should
+ * keep extra fields serializable or configure a json serializer on the cache.
+ */
+public class SharedSessionStore implements ISessionStore
+{
+	/**
+	 * Cache holding sessions.
+	 */
+	private Cache cache;
+	
+	/**
+	 * Instantiates a new shared session store.
+	 * @param cache Cache holding sessions.
+	 */
+	public SharedSessionStore(Cache cache)
+	{
+		if(cache == null)
+		{
+			throw new InvalidArgumentException("Cache can not be null for shared session store");
+		}
+		
+		this.cache = cache;
+	}
+
+	@Override
+	public SessionEntity get(String sessionToken)
+	{
+		return cache.get(sessionToken, SessionEntity.class);
+	}
+
+	@Override
+	public void put(SessionEntity sessionEntity)
+	{
+		cache.put(sessionEntity.getSessionToken(), sessionEntity);
+	}
+
+	@Override
+	public void remove(String sessionToken)
+	{
+		cache.evict(sessionToken);
+	}
+}
@@ -1,17 +1,20 @@
 package com.webutils.common;
 
+import java.util.BitSet;
 import java.util.Set;
 
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 /**
  * User details that will be accessible on the request.
  */
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class UserDetails
 {
 	private long id;
@@ -25,4 +28,29 @@ public class UserDetails
 	private String authToken;
 	
 	private Set<String> roles;
+	
+	/**
+	 * Roles as bit mask, indexed by server side role registry. Built once when session is resolved,
+	 * so that role checks do not need set lookups.
+	 */
+	@JsonIgnore
+	@ToString.Exclude
+	@EqualsAndHashCode.Exclude
+	private transient BitSet roleMask;
+	
+	public UserDetails(long id, String name, String mailId, String customSpace, String authToken, Set<String> roles)
+	{
+		this.id = id;
+		this.name = name;
+		this.mailId = mailId;
+		this.customSpace = customSpace;
+		this.authToken = authToken;
+		this.roles = roles;
+	}
+	
+	public void setRoles(Set<String> roles)
+	{
+		this.roles = roles;
+		this.roleMask = null;
+	}
 }
@@ -24,6 +24,17 @@ public class ExecuteSearchResponse extends BaseResponse
 	private int pageSize;
 	private long totalCount;
 
+	/**
+	 * How total count was computed, null if count was not requested.
+	 */
+	private SearchCountType countType;
+
+	/**
+	 * Cursor to fetch next page using keyset pagination. Null when cursor paging was not
+	 * requested, is not supported by the query or when there are no more results.
+	 */
+	private String nextCursor;
+
 	@JsonIgnore
 	private List<Object> actualResults;
 
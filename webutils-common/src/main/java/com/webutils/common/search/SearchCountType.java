@@ -0,0 +1,22 @@
+package com.webutils.common.search;
+
+/**
+ * Indicates how total count of a search response was computed.
+ */
+public enum SearchCountType
+{
+	/**
+	 * Count was computed by a count query for this request.
+	 */
+	EXACT,
+
+	/**
+	 * Count was served from a recently computed count of the same conditions.
+	 */
+	CACHED,
+
+	/**
+	 * Matching rows exceed the estimation cap; total count holds the cap and actual count is higher.
+	 */
+	ESTIMATED;
+}
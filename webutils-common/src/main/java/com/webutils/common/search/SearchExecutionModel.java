@@ -28,6 +28,24 @@ public class SearchExecutionModel
 
 	private boolean fetchCount = false;
 
+	/**
+	 * When true along with fetch-count, count is not computed beyond configured cap. If more rows
+	 * match, response carries the cap as total count with count type as estimated.
+	 */
+	private boolean estimateCount = false;
+
+	/**
+	 * When true, pages are fetched using keyset (seek) pagination if the search query ordering
+	 * supports it, and response carries cursor for next page.
+	 */
+	private boolean cursorPaging = false;
+
+	/**
+	 * Cursor returned as next-cursor by previous page. When specified along with cursor-paging,
+	 * the page following the cursor position is fetched and page number is used only for display.
+	 */
+	private String cursor;
+
 	@JsonIgnore
 	private boolean fetchAll = false;
 
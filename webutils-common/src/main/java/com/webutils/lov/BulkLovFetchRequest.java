@@ -0,0 +1,22 @@
+package com.webutils.lov;
+
+import java.util.List;
+
+import com.yukthitech.validation.annotations.Required;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+/**
+ * Request to fetch options of multiple lovs in single call. Results are returned in the
+ * order of requests.
+ */
+@Data
+@NoArgsConstructor
+@Accessors(chain = true)
+public class BulkLovFetchRequest
+{
+    @Required
+    private List<LovFetchRequest> lovs;
+}
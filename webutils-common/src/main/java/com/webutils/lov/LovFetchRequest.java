@@ -0,0 +1,31 @@
+package com.webutils.lov;
+
+import com.webutils.common.form.model.LovType;
+import com.yukthitech.validation.annotations.NotEmpty;
+import com.yukthitech.validation.annotations.Required;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+/**
+ * Single lov to be fetched as part of bulk lov fetch.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Accessors(chain = true)
+public class LovFetchRequest
+{
+    @Required
+    private LovType type;
+
+    @NotEmpty
+    private String name;
+
+    /**
+     * Selected parent option label, for dependent lovs.
+     */
+    private String parentValue;
+}
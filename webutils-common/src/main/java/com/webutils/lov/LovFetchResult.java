@@ -0,0 +1,28 @@
+package com.webutils.lov;
+
+import java.util.List;
+
+import com.webutils.common.form.model.LovType;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+/**
+ * Options of a lov fetched as part of bulk lov fetch.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Accessors(chain = true)
+public class LovFetchResult
+{
+    private LovType type;
+
+    private String name;
+
+    private String parentValue;
+
+    private List<LovOption> options;
+}
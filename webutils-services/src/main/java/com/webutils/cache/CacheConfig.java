@@ -1,6 +1,8 @@
 package com.webutils.cache;
 
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
 
 import lombok.Data;
 import lombok.experimental.Accessors;
@@ -9,10 +11,32 @@ import lombok.experimental.Accessors;
 @Accessors(chain = true)
 public class CacheConfig<K,V>
 {
+    /**
+     * Node local caffeine cache.
+     */
+    public static final String TIER_LOCAL = "local";
+
+    /**
+     * Local cache in front of a store shared by the cluster, kept in sync by invalidation broadcasts.
+     */
+    public static final String TIER_NEAR = "near";
+
     private String name;
+    private String tier = TIER_LOCAL;
     private long expiryTime;
     private TimeUnit expiryTimeUnit;
+    private long writeExpiryTime;
+    private TimeUnit writeExpiryTimeUnit;
+    private long refreshTime;
+    private TimeUnit refreshTimeUnit;
     private int maxSize;
+    private long maxWeight;
+    private ToIntBiFunction<K,V> weigher;
+
+    /**
+     * Loader used to load missing values and to reload values for refresh.
+     */
+    private Function<K,V> loader;
 
     public CacheConfig<K,V> expireAfterAccess(long expiryTime, TimeUnit expiryTimeUnit)
     {
@@ -21,9 +45,69 @@ public class CacheConfig<K,V>
         return this;
     }
 
+    /**
+     * Expires entries after specified time from their creation or last update, irrespective of access.
+     */
+    public CacheConfig<K,V> expireAfterWrite(long writeExpiryTime, TimeUnit writeExpiryTimeUnit)
+    {
+        this.writeExpiryTime = writeExpiryTime;
+        this.writeExpiryTimeUnit = writeExpiryTimeUnit;
+        return this;
+    }
+
+    /**
+     * Reloads entries asynchronously using the loader, when accessed after specified time from their
+     * last write. Till reload completes the old value is served. Needs a loader to be configured.
+     */
+    public CacheConfig<K,V> refreshAfterWrite(long refreshTime, TimeUnit refreshTimeUnit)
+    {
+        this.refreshTime = refreshTime;
+        this.refreshTimeUnit = refreshTimeUnit;
+        return this;
+    }
+
     public CacheConfig<K,V> maxSize(int maxSize)
     {
         this.maxSize = maxSize;
         return this;
     }
+
+    /**
+     * Limits the cache by total weight of entries, instead of entry count. Cannot be combined with max size.
+     */
+    public CacheConfig<K,V> maxWeight(long maxWeight, ToIntBiFunction<K,V> weigher)
+    {
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        return this;
+    }
+
+    public CacheConfig<K,V> loader(Function<K,V> loader)
+    {
+        this.loader = loader;
+        return this;
+    }
+
+    /**
+     * Time to live of entries in millis, considering write expiry first and then access expiry.
+     * @return ttl or zero if entries do not expire
+     */
+    public long getTtlMillis()
+    {
+        if(writeExpiryTime > 0)
+        {
+            return writeExpiryTimeUnit.toMillis(writeExpiryTime);
+        }
+
+        return (expiryTime > 0) ? expiryTimeUnit.toMillis(expiryTime) : 0;
+    }
+
+    /**
+     * Sets default tier of the cache, which can be overridden by property "webutils.cache.tier.&lt;cache-name&gt;".
+     */
+    public CacheConfig<K,V> tier(String tier)
+    {
+        this.tier = tier;
+        return this;
+    }
 }
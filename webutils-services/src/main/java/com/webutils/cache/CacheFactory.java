@@ -1,18 +1,282 @@
 package com.webutils.cache;
 
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 
+import com.yukthitech.utils.exceptions.InvalidStateException;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PostConstruct;
+
 @Service
 public class CacheFactory
 {
+	private static final Logger logger = LogManager.getLogger(CacheFactory.class);
+	
 	private Map<String, ICache<?,?>> cacheMap = new ConcurrentHashMap<String, ICache<?,?>>();
 	
+	private Map<String, ICacheProvider> providers = new ConcurrentHashMap<String, ICacheProvider>();
+	
+	/**
+	 * Identifies this node in invalidation broadcasts.
+	 */
+	private final String nodeId = UUID.randomUUID().toString();
+	
+	/**
+	 * Listeners of broadcasted keys, by name.
+	 */
+	private Map<String, List<Consumer<Object>>> broadcastListeners = new ConcurrentHashMap<String, List<Consumer<Object>>>();
+	
+	private ICacheInvalidationChannel invalidationChannel;
+	
+	/**
+	 * Flags indicating if shared store and invalidation channel beans are configured, instead
+	 * of in-memory stand-ins being used.
+	 */
+	private boolean sharedStoreConfigured, invalidationChannelConfigured;
+	
+	@Autowired
+	private Environment environment;
+	
+	/**
+	 * When set, near caches can be created without shared store and invalidation channel beans, in which
+	 * case in-memory stand-ins are used (like in single node or test setups). Otherwise such caches fail creation.
+	 */
+	@Value("${webutils.cache.near.allowInMemory:false}")
+	private boolean allowInMemoryNearCaches;
+	
+	@Autowired
+	private ObjectProvider<ISharedCacheStore> sharedStoreProvider;
+	
+	@Autowired
+	private ObjectProvider<ICacheInvalidationChannel> invalidationChannelProvider;
+	
+	@Autowired
+	private ObjectProvider<ICacheProvider> cacheProviders;
+	
+	@Autowired
+	private ObjectProvider<MeterRegistry> meterRegistryProvider;
+	
+	@PostConstruct
+	private void init()
+	{
+		ISharedCacheStore sharedStore = sharedStoreProvider.getIfAvailable();
+		sharedStoreConfigured = (sharedStore != null);
+		
+		if(sharedStore == null)
+		{
+			logger.info("No shared cache store is configured. Using in-memory store for near caches");
+			sharedStore = new InMemorySharedCacheStore();
+		}
+		
+		invalidationChannel = invalidationChannelProvider.getIfAvailable();
+		invalidationChannelConfigured = (invalidationChannel != null);
+		
+		if(invalidationChannel == null)
+		{
+			logger.info("No cache invalidation channel is configured. Using in-memory channel, invalidations will not reach other nodes");
+			invalidationChannel = new InMemoryInvalidationChannel();
+		}
+		
+		invalidationChannel.subscribe(this::onInvalidation);
+		
+		registerProvider(new LocalCacheProvider());
+		registerProvider(new NearCacheProvider(nodeId, sharedStore, invalidationChannel));
+		
+		// app defined providers can add new tiers or replace default ones
+		cacheProviders.orderedStream().forEach(this::registerProvider);
+	}
+	
+	public void registerProvider(ICacheProvider provider)
+	{
+		providers.put(provider.getTier(), provider);
+	}
+	
+	private void onInvalidation(CacheInvalidation invalidation)
+	{
+		if(cacheMap.get(invalidation.cacheName()) instanceof NearCache<?,?> nearCache)
+		{
+			nearCache.onInvalidation(invalidation);
+		}
+		
+		List<Consumer<Object>> listeners = broadcastListeners.get(invalidation.cacheName());
+		
+		if(listeners != null && !nodeId.equals(invalidation.originNode()))
+		{
+			listeners.forEach(listener -> listener.accept(invalidation.key()));
+		}
+	}
+	
+	/**
+	 * Returns true if an {@link ICacheInvalidationChannel} bean is configured. Otherwise, an in-memory
+	 * channel is used and broadcasts do not reach other nodes.
+	 */
+	public boolean isInvalidationChannelConfigured()
+	{
+		return invalidationChannelConfigured;
+	}
+	
+	/**
+	 * Broadcasts specified key to other nodes over the invalidation channel, on which listeners
+	 * registered with same name get invoked. Useful to replicate small local state, like revoked keys.
+	 * Nodes joining later do not receive earlier broadcasts.
+	 */
+	public void broadcast(String name, Object key)
+	{
+		invalidationChannel.publish(new CacheInvalidation(nodeId, name, key));
+	}
+	
+	/**
+	 * Adds listener for keys broadcasted by other nodes with specified name.
+	 */
+	public void addBroadcastListener(String name, Consumer<Object> listener)
+	{
+		broadcastListeners.computeIfAbsent(name, key -> new CopyOnWriteArrayList<>()).add(listener);
+	}
+	
 	@SuppressWarnings({ "unchecked", "unused" })
 	public <K,V> ICache<K,V> getCache(String name, CacheConfig<K,V> config)
 	{
-		return (ICache<K,V>) cacheMap.computeIfAbsent(name, key -> new LocalCache<>(config.setName(name)));
+		return (ICache<K,V>) cacheMap.computeIfAbsent(name, key -> 
+		{
+			ICache<K,V> cache = newCache(config.setName(name));
+			bindMetrics(name, cache);
+			return cache;
+		});
+	}
+	
+	/**
+	 * Fetches names of caches created so far, in sorted order.
+	 */
+	public List<String> getCacheNames()
+	{
+		return cacheMap.keySet().stream().sorted().toList();
+	}
+	
+	/**
+	 * Fetches statistics of all caches, sorted by name.
+	 */
+	public List<CacheStats> getAllStats()
+	{
+		return getCacheNames().stream()
+			.map(name -> cacheMap.get(name).getStats())
+			.toList();
+	}
+	
+	/**
+	 * Fetches statistics of specified cache.
+	 * @return statistics or null, if no cache exists with specified name
+	 */
+	public CacheStats getStats(String name)
+	{
+		ICache<?,?> cache = cacheMap.get(name);
+		return (cache == null) ? null : cache.getStats();
+	}
+	
+	/**
+	 * Clears all entries of specified cache.
+	 * @return false, if no cache exists with specified name
+	 */
+	public boolean clearCache(String name)
+	{
+		ICache<?,?> cache = cacheMap.get(name);
+		
+		if(cache == null)
+		{
+			return false;
+		}
+		
+		logger.info("Clearing cache: {}", name);
+		cache.clear();
+		return true;
+	}
+	
+	/**
+	 * Publishes statistics of specified cache as meters, when a meter registry is available (actuator).
+	 */
+	private void bindMetrics(String name, ICache<?,?> cache)
+	{
+		MeterRegistry registry = meterRegistryProvider.getIfAvailable();
+		
+		if(registry == null)
+		{
+			return;
+		}
+		
+		counter(registry, "webutils.cache.gets", name, "result", "hit", cache, stats -> stats.getHitCount());
+		counter(registry, "webutils.cache.gets", name, "result", "miss", cache, stats -> stats.getMissCount());
+		counter(registry, "webutils.cache.loads", name, "result", "success", cache, stats -> stats.getLoadSuccessCount());
+		counter(registry, "webutils.cache.loads", name, "result", "failure", cache, stats -> stats.getLoadFailureCount());
+		counter(registry, "webutils.cache.evictions", name, null, null, cache, stats -> stats.getEvictionCount());
+		
+		Gauge.builder("webutils.cache.size", cache, c -> c.getStats().getSize())
+			.tag("cache", name)
+			.description("Approximate number of entries in cache")
+			.register(registry);
+		
+		TimeGauge.builder("webutils.cache.load.duration", cache, TimeUnit.NANOSECONDS, c -> c.getStats().getTotalLoadTimeNanos())
+			.tag("cache", name)
+			.description("Total time spent in loading cache values")
+			.register(registry);
+	}
+	
+	private void counter(MeterRegistry registry, String meterName, String cacheName, String tagName, String tagValue, 
+			ICache<?,?> cache, ToDoubleFunction<CacheStats> valueFunc)
+	{
+		Tags tags = Tags.of("cache", cacheName);
+		
+		if(tagName != null)
+		{
+			tags = tags.and(tagName, tagValue);
+		}
+		
+		FunctionCounter.builder(meterName, cache, c -> valueFunc.applyAsDouble(c.getStats()))
+			.tags(tags)
+			.register(registry);
+	}
+	
+	private <K,V> ICache<K,V> newCache(CacheConfig<K,V> config)
+	{
+		String tier = environment.getProperty("webutils.cache.tier." + config.getName(), config.getTier());
+		ICacheProvider provider = providers.get(tier);
+		
+		if(provider == null)
+		{
+			throw new InvalidStateException("No cache provider is registered for tier '{}' of cache: {}", tier, config.getName());
+		}
+		
+		if(CacheConfig.TIER_NEAR.equals(tier) && provider instanceof NearCacheProvider 
+				&& (!sharedStoreConfigured || !invalidationChannelConfigured))
+		{
+			if(!allowInMemoryNearCaches)
+			{
+				throw new InvalidStateException("Cache {} is configured with near tier, but ISharedCacheStore and/or ICacheInvalidationChannel "
+						+ "beans are not configured. For single node setups set webutils.cache.near.allowInMemory=true", config.getName());
+			}
+			
+			logger.warn("Cache {} is configured with near tier, but ISharedCacheStore and/or ICacheInvalidationChannel beans "
+					+ "are not configured. In-memory stand-ins are used, so the cache is not shared across nodes", config.getName());
+		}
+		
+		logger.debug("Creating cache {} with tier: {}", config.getName(), tier);
+		return provider.createCache(config.setTier(tier));
 	}
 }
@@ -0,0 +1,13 @@
+package com.webutils.cache;
+
+import java.io.Serializable;
+
+/**
+ * Invalidation message broadcast by near caches.
+ * @param originNode node which published the invalidation
+ * @param cacheName cache to be invalidated
+ * @param key key to be invalidated, null if all entries has to be invalidated
+ */
+public record CacheInvalidation(String originNode, String cacheName, Object key) implements Serializable
+{
+}
@@ -0,0 +1,24 @@
+package com.webutils.cache;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * Point in time statistics of a cache. Counters are cumulative from the creation of the cache.
+ */
+@Data
+@Accessors(chain = true)
+public class CacheStats
+{
+    private String name;
+    private String tier;
+    private long size;
+    private int maxSize;
+    private long hitCount;
+    private long missCount;
+    private double hitRate;
+    private long loadSuccessCount;
+    private long loadFailureCount;
+    private long totalLoadTimeNanos;
+    private long evictionCount;
+}
@@ -1,5 +1,10 @@
 package com.webutils.cache;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 public interface ICache<K,V>
@@ -10,5 +15,44 @@ public interface ICache<K,V>
 	
 	public V get(K key);
 	
+	/**
+	 * Fetches value for specified key, loading it using configured loader when missing.
+	 */
+	public V getOrLoad(K key);
+	
 	public void remove(K key);
+	
+	/**
+	 * Fetches values of specified keys. Missing keys are loaded together using specified bulk loader,
+	 * which can skip keys for which no value exists.
+	 * @return values by key, excluding keys with no value
+	 */
+	public Map<K, V> getAll(Collection<K> keys, Function<Set<K>, Map<K, V>> bulkLoader);
+	
+	public void putAll(Map<K, V> values);
+	
+	/**
+	 * Removes entries of specified keys.
+	 */
+	public void invalidateAll(Collection<K> keys);
+	
+	/**
+	 * Removes entries whose keys match specified predicate.
+	 */
+	public void invalidateIf(Predicate<K> keyPredicate);
+	
+	/**
+	 * Removes entries whose keys are strings starting with specified prefix.
+	 */
+	public default void invalidatePrefix(String prefix)
+	{
+		invalidateIf(key -> (key instanceof String strKey) && strKey.startsWith(prefix));
+	}
+	
+	public void clear();
+	
+	/**
+	 * Fetches current statistics of this cache.
+	 */
+	public CacheStats getStats();
 }
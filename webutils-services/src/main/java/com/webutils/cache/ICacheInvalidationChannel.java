@@ -0,0 +1,13 @@
+package com.webutils.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Pub/sub channel used to broadcast cache invalidations to all nodes of the cluster.
+ */
+public interface ICacheInvalidationChannel
+{
+	public void publish(CacheInvalidation invalidation);
+	
+	public void subscribe(Consumer<CacheInvalidation> listener);
+}
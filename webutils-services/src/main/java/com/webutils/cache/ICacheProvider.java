@@ -0,0 +1,16 @@
+package com.webutils.cache;
+
+/**
+ * Creates caches of a specific tier. Providers are registered with {@link CacheFactory} by
+ * tier name, and tier of a cache is selected by {@link CacheConfig#getTier()} or by
+ * property "webutils.cache.tier.&lt;cache-name&gt;".
+ */
+public interface ICacheProvider
+{
+	/**
+	 * Name of the tier served by this provider.
+	 */
+	public String getTier();
+	
+	public <K,V> ICache<K,V> createCache(CacheConfig<K,V> config);
+}
@@ -0,0 +1,20 @@
+package com.webutils.cache;
+
+/**
+ * Store shared by all nodes of the cluster, used as second tier of near caches. Implementations
+ * (like redis based stores) are expected to serialize keys and values as needed.
+ */
+public interface ISharedCacheStore
+{
+	public Object get(String cacheName, Object key);
+	
+	/**
+	 * Stores specified value.
+	 * @param ttlMillis time after which value should expire, zero or negative for no expiry
+	 */
+	public void put(String cacheName, Object key, Object value, long ttlMillis);
+	
+	public void remove(String cacheName, Object key);
+	
+	public void clear(String cacheName);
+}
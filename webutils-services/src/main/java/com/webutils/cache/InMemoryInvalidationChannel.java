@@ -0,0 +1,29 @@
+package com.webutils.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process stand-in for invalidation channel, which delivers invalidations synchronously
+ * to all subscribers within the jvm.
+ */
+public class InMemoryInvalidationChannel implements ICacheInvalidationChannel
+{
+	private final List<Consumer<CacheInvalidation>> listeners = new CopyOnWriteArrayList<>();
+	
+	@Override
+	public void publish(CacheInvalidation invalidation)
+	{
+		for(Consumer<CacheInvalidation> listener : listeners)
+		{
+			listener.accept(invalidation);
+		}
+	}
+	
+	@Override
+	public void subscribe(Consumer<CacheInvalidation> listener)
+	{
+		listeners.add(listener);
+	}
+}
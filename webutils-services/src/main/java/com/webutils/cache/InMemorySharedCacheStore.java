@@ -0,0 +1,60 @@
+package com.webutils.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process stand-in for shared cache store. Used when no shared store is configured and
+ * for testing near caches of multiple cache factories within single jvm.
+ */
+public class InMemorySharedCacheStore implements ISharedCacheStore
+{
+	private record Entry(Object value, long expiresAt)
+	{}
+	
+	private final Map<String, Map<Object, Entry>> caches = new ConcurrentHashMap<>();
+	
+	@Override
+	public Object get(String cacheName, Object key)
+	{
+		Map<Object, Entry> cache = caches.get(cacheName);
+		Entry entry = (cache == null) ? null : cache.get(key);
+		
+		if(entry == null)
+		{
+			return null;
+		}
+		
+		if(entry.expiresAt() > 0 && entry.expiresAt() < System.currentTimeMillis())
+		{
+			cache.remove(key, entry);
+			return null;
+		}
+		
+		return entry.value();
+	}
+	
+	@Override
+	public void put(String cacheName, Object key, Object value, long ttlMillis)
+	{
+		long expiresAt = (ttlMillis > 0) ? System.currentTimeMillis() + ttlMillis : 0;
+		caches.computeIfAbsent(cacheName, name -> new ConcurrentHashMap<>()).put(key, new Entry(value, expiresAt));
+	}
+	
+	@Override
+	public void remove(String cacheName, Object key)
+	{
+		Map<Object, Entry> cache = caches.get(cacheName);
+		
+		if(cache != null)
+		{
+			cache.remove(key);
+		}
+	}
+	
+	@Override
+	public void clear(String cacheName)
+	{
+		caches.remove(cacheName);
+	}
+}
@@ -1,29 +1,102 @@
 package com.webutils.cache;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.function.ToIntBiFunction;
 
 import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.yukthitech.utils.exceptions.InvalidStateException;
 
 public class LocalCache<K,V> implements ICache<K,V>
 {
 	private Cache<K, V> cache;
 	
+	/**
+	 * Same as cache, when a loader is configured.
+	 */
+	private LoadingCache<K, V> loadingCache;
+	
+	private CacheConfig<K,V> config;
+	
 	public LocalCache(CacheConfig<K,V> config)
 	{
-		Caffeine<Object, Object> builder = Caffeine.newBuilder();
+		this(config, config.getLoader(), config.getLoader());
+	}
+	
+	/**
+	 * Creates cache which uses specified loader for missing values and reloader for refreshing values.
+	 */
+	LocalCache(CacheConfig<K,V> config, Function<K,V> loader, Function<K,V> reloader)
+	{
+		this.config = config;
+		Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats();
 
 		if(config.getExpiryTime() > 0)
 		{
 			builder.expireAfterAccess(config.getExpiryTime(), config.getExpiryTimeUnit());
 		}
 
+		if(config.getWriteExpiryTime() > 0)
+		{
+			builder.expireAfterWrite(config.getWriteExpiryTime(), config.getWriteExpiryTimeUnit());
+		}
+
+		if(config.getRefreshTime() > 0)
+		{
+			if(loader == null)
+			{
+				throw new InvalidStateException("Refresh is configured without loader for cache: {}", config.getName());
+			}
+			
+			builder.refreshAfterWrite(config.getRefreshTime(), config.getRefreshTimeUnit());
+		}
+
+		if(config.getMaxSize() > 0 && config.getMaxWeight() > 0)
+		{
+			throw new InvalidStateException("Both max size and max weight are configured for cache: {}", config.getName());
+		}
+
 		if(config.getMaxSize() > 0)
 		{
 			builder.maximumSize(config.getMaxSize());
 		}
 
-		this.cache = builder.build();
+		if(config.getMaxWeight() > 0)
+		{
+			ToIntBiFunction<K,V> weigher = config.getWeigher();
+			builder.maximumWeight(config.getMaxWeight())
+				.weigher((K key, V value) -> weigher.applyAsInt(key, value));
+		}
+
+		if(loader == null)
+		{
+			this.cache = builder.build();
+			return;
+		}
+		
+		this.loadingCache = builder.build(new CacheLoader<K, V>()
+		{
+			@Override
+			public V load(K key)
+			{
+				return loader.apply(key);
+			}
+			
+			@Override
+			public V reload(K key, V oldValue)
+			{
+				return reloader.apply(key);
+			}
+		});
+		
+		this.cache = loadingCache;
 	}
 	
 	@Override
@@ -45,9 +118,70 @@ public class LocalCache<K,V> implements ICache<K,V>
 		return cache.getIfPresent(key);
 	}
 	
+	@Override
+	public V getOrLoad(K key)
+	{
+		if(loadingCache == null)
+		{
+			throw new InvalidStateException("No loader is configured for cache: {}", config.getName());
+		}
+		
+		return loadingCache.get(key);
+	}
+	
 	@Override
 	public void remove(K key)
 	{
 		cache.invalidate(key);
 	}
+	
+	@SuppressWarnings("unchecked")
+	@Override
+	public Map<K, V> getAll(Collection<K> keys, Function<Set<K>, Map<K, V>> bulkLoader)
+	{
+		return cache.getAll(keys, missingKeys -> bulkLoader.apply((Set<K>) missingKeys));
+	}
+	
+	@Override
+	public void putAll(Map<K, V> values)
+	{
+		cache.putAll(values);
+	}
+	
+	@Override
+	public void invalidateAll(Collection<K> keys)
+	{
+		cache.invalidateAll(keys);
+	}
+	
+	@Override
+	public void invalidateIf(Predicate<K> keyPredicate)
+	{
+		cache.asMap().keySet().removeIf(keyPredicate);
+	}
+	
+	@Override
+	public void clear()
+	{
+		cache.invalidateAll();
+	}
+	
+	@Override
+	public CacheStats getStats()
+	{
+		com.github.benmanes.caffeine.cache.stats.CacheStats stats = cache.stats();
+		
+		return new CacheStats()
+			.setName(config.getName())
+			.setTier(config.getTier())
+			.setSize(cache.estimatedSize())
+			.setMaxSize(config.getMaxSize())
+			.setHitCount(stats.hitCount())
+			.setMissCount(stats.missCount())
+			.setHitRate(stats.hitRate())
+			.setLoadSuccessCount(stats.loadSuccessCount())
+			.setLoadFailureCount(stats.loadFailureCount())
+			.setTotalLoadTimeNanos(stats.totalLoadTime())
+			.setEvictionCount(stats.evictionCount());
+	}
 }
@@ -0,0 +1,19 @@
+package com.webutils.cache;
+
+/**
+ * Provider of node local caches.
+ */
+public class LocalCacheProvider implements ICacheProvider
+{
+	@Override
+	public String getTier()
+	{
+		return CacheConfig.TIER_LOCAL;
+	}
+	
+	@Override
+	public <K,V> ICache<K,V> createCache(CacheConfig<K,V> config)
+	{
+		return new LocalCache<>(config);
+	}
+}
@@ -0,0 +1,228 @@
+package com.webutils.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Two tier cache with a node local (near) tier in front of a store shared by the cluster.
+ * Writes and removals go to the shared store and are broadcast over the invalidation channel,
+ * so that near copies on other nodes get evicted.
+ */
+public class NearCache<K,V> implements ICache<K,V>
+{
+	private final String name;
+	
+	private final String nodeId;
+	
+	private final long ttlMillis;
+	
+	private final LocalCache<K,V> nearCache;
+	
+	private final ISharedCacheStore sharedStore;
+	
+	private final ICacheInvalidationChannel invalidationChannel;
+	
+	public NearCache(CacheConfig<K,V> config, String nodeId, ISharedCacheStore sharedStore, ICacheInvalidationChannel invalidationChannel)
+	{
+		this.name = config.getName();
+		this.nodeId = nodeId;
+		this.ttlMillis = config.getTtlMillis();
+		this.sharedStore = sharedStore;
+		this.invalidationChannel = invalidationChannel;
+		
+		Function<K,V> loader = config.getLoader();
+		this.nearCache = (loader == null) ? new LocalCache<>(config) : 
+			new LocalCache<>(config, key -> loadShared(key, loader), key -> loadAndShare(key, loader));
+	}
+	
+	/**
+	 * Used for missing values. Value is looked up in shared store before using actual loader.
+	 */
+	private V loadShared(K key, Function<K,V> loader)
+	{
+		V value = getShared(key);
+		return (value != null) ? value : loadAndShare(key, loader);
+	}
+	
+	/**
+	 * Used for missing values not found in shared store and for refreshes, so that refresh fetches fresh value.
+	 */
+	private V loadAndShare(K key, Function<K,V> loader)
+	{
+		V value = loader.apply(key);
+		
+		if(value != null)
+		{
+			sharedStore.put(name, key, value, ttlMillis);
+			publish(key);
+		}
+		
+		return value;
+	}
+	
+	@Override
+	public void set(K key, V value)
+	{
+		sharedStore.put(name, key, value, ttlMillis);
+		nearCache.set(key, value);
+		publish(key);
+	}
+	
+	@Override
+	public V computeIfAbsent(K key, Supplier<V> valueSupplier)
+	{
+		return nearCache.computeIfAbsent(key, () -> 
+		{
+			V value = getShared(key);
+			
+			if(value == null)
+			{
+				value = valueSupplier.get();
+				
+				if(value != null)
+				{
+					sharedStore.put(name, key, value, ttlMillis);
+				}
+			}
+			
+			return value;
+		});
+	}
+	
+	@Override
+	public V get(K key)
+	{
+		V value = nearCache.get(key);
+		
+		if(value != null)
+		{
+			return value;
+		}
+		
+		value = getShared(key);
+		
+		if(value != null)
+		{
+			nearCache.set(key, value);
+		}
+		
+		return value;
+	}
+	
+	@Override
+	public V getOrLoad(K key)
+	{
+		return nearCache.getOrLoad(key);
+	}
+	
+	@Override
+	public void remove(K key)
+	{
+		sharedStore.remove(name, key);
+		nearCache.remove(key);
+		publish(key);
+	}
+	
+	@Override
+	public Map<K, V> getAll(Collection<K> keys, Function<Set<K>, Map<K, V>> bulkLoader)
+	{
+		return nearCache.getAll(keys, missingKeys -> 
+		{
+			Map<K, V> values = new HashMap<>();
+			Set<K> unsharedKeys = new HashSet<>();
+			
+			for(K key : missingKeys)
+			{
+				V value = getShared(key);
+				
+				if(value != null)
+				{
+					values.put(key, value);
+				}
+				else
+				{
+					unsharedKeys.add(key);
+				}
+			}
+			
+			if(!unsharedKeys.isEmpty())
+			{
+				Map<K, V> loadedValues = bulkLoader.apply(unsharedKeys);
+				loadedValues.forEach((key, value) -> sharedStore.put(name, key, value, ttlMillis));
+				values.putAll(loadedValues);
+			}
+			
+			return values;
+		});
+	}
+	
+	@Override
+	public void putAll(Map<K, V> values)
+	{
+		values.forEach((key, value) -> sharedStore.put(name, key, value, ttlMillis));
+		nearCache.putAll(values);
+		values.keySet().forEach(this::publish);
+	}
+	
+	@Override
+	public void invalidateAll(Collection<K> keys)
+	{
+		keys.forEach(key -> sharedStore.remove(name, key));
+		nearCache.invalidateAll(keys);
+		keys.forEach(this::publish);
+	}
+	
+	/**
+	 * Shared store keys can not be enumerated, so predicate invalidation clears the whole cache
+	 * on all nodes.
+	 */
+	@Override
+	public void invalidateIf(Predicate<K> keyPredicate)
+	{
+		clear();
+	}
+	
+	@Override
+	public void clear()
+	{
+		sharedStore.clear(name);
+		nearCache.clear();
+		publish(null);
+	}
+	
+	/**
+	 * Statistics of the near tier. Misses here include lookups served by the shared store.
+	 */
+	@Override
+	public CacheStats getStats()
+	{
+		return nearCache.getStats();
+	}
+	
+	/**
+	 * Evicts near copies for invalidations published by other nodes.
+	 */
+	@SuppressWarnings("unchecked")
+	void onInvalidation(CacheInvalidation invalidation)
+	{
+		if(nodeId.equals(invalidation.originNode()))
+		{
+			return;
+		}
+		
+		if(invalidation.key() == null)
+		{
+			nearCache.clear();
+		}
+		else
+		{
+			nearCache.remove((K) invalidation.key());
+		}
+	}
+}
@@ -0,0 +1,32 @@
+package com.webutils.cache;
+
+/**
+ * Provider of near caches backed by a shared store.
+ */
+public class NearCacheProvider implements ICacheProvider
+{
+	private final String nodeId;
+	
+	private final ISharedCacheStore sharedStore;
+	
+	private final ICacheInvalidationChannel invalidationChannel;
+	
+	public NearCacheProvider(String nodeId, ISharedCacheStore sharedStore, ICacheInvalidationChannel invalidationChannel)
+	{
+		this.nodeId = nodeId;
+		this.sharedStore = sharedStore;
+		this.invalidationChannel = invalidationChannel;
+	}
+	
+	@Override
+	public String getTier()
+	{
+		return CacheConfig.TIER_NEAR;
+	}
+	
+	@Override
+	public <K,V> ICache<K,V> createCache(CacheConfig<K,V> config)
+	{
+		return new NearCache<>(config, nodeId, sharedStore, invalidationChannel);
+	}
+}
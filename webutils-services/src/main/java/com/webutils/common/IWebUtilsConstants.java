@@ -8,4 +8,9 @@ public interface IWebUtilsConstants
 	
     String SESSION_TOKEN_HEADER = "Authorization";
     String SESSION_BEARER_PREFIX = "Bearer ";
+    
+    /**
+     * Response header carrying renewed session token, which should be used for subsequent requests.
+     */
+    String RENEWED_SESSION_TOKEN_HEADER = "X-Renewed-Auth-Token";
 }
@@ -0,0 +1,32 @@
+package com.webutils.common;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Utilities to tie in-memory state changes (like cache updates) to transaction outcome.
+ */
+public class TransactionUtils
+{
+	/**
+	 * Runs specified action after current transaction is committed, so that rolled back changes are
+	 * never reflected. When no transaction is active, the action is run immediately.
+	 */
+	public static void runAfterCommit(Runnable action)
+	{
+		if(!TransactionSynchronizationManager.isSynchronizationActive())
+		{
+			action.run();
+			return;
+		}
+		
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization()
+		{
+			@Override
+			public void afterCommit()
+			{
+				action.run();
+			}
+		});
+	}
+}
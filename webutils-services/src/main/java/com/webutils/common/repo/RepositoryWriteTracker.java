@@ -0,0 +1,99 @@
+package com.webutils.common.repo;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import com.webutils.common.TransactionUtils;
+import com.yukthitech.persistence.ICrudRepository;
+
+/**
+ * Maintains a write version per entity type, which gets incremented whenever a write
+ * method (save, insert, update, upsert, delete) is invoked on a tracked repository of the entity.
+ * Caches holding data derived from an entity table can include the version in their keys, so that
+ * they get invalidated on local writes.
+ *
+ * Versions are incremented only after the current transaction is committed, so that data read
+ * before commit is never cached against the new version.
+ */
+@Component
+public class RepositoryWriteTracker
+{
+	private static final String[] WRITE_METHOD_PREFIXES = {"save", "insert", "update", "upsert", "delete"};
+
+	private final Map<Class<?>, AtomicLong> entityVersions = new ConcurrentHashMap<>();
+
+	private final Map<Method, Boolean> writeMethods = new ConcurrentHashMap<>();
+
+	/**
+	 * Fetches current write version of specified entity type.
+	 */
+	public long getVersion(Class<?> entityType)
+	{
+		AtomicLong version = entityVersions.get(entityType);
+		return (version == null) ? 0 : version.get();
+	}
+
+	/**
+	 * Marks specified entity type as modified.
+	 */
+	public void markModified(Class<?> entityType)
+	{
+		entityVersions.computeIfAbsent(entityType, key -> new AtomicLong()).incrementAndGet();
+	}
+
+	private boolean isWriteMethod(Method method)
+	{
+		return writeMethods.computeIfAbsent(method, key ->
+		{
+			String name = key.getName();
+			for(String prefix : WRITE_METHOD_PREFIXES)
+			{
+				if(name.startsWith(prefix))
+				{
+					return true;
+				}
+			}
+			return false;
+		});
+	}
+
+	/**
+	 * Wraps specified repository, so that writes on it increment the version of its entity type
+	 * once the enclosing transaction is committed.
+	 * The wrapper implements all interfaces of specified repository.
+	 */
+	public Object track(ICrudRepository<?> repository)
+	{
+		Class<?> entityType = repository.getEntityDetails().getEntityType();
+
+		InvocationHandler handler = (proxy, method, args) ->
+		{
+			Object result;
+			try
+			{
+				result = method.invoke(repository, args);
+			}
+			catch(InvocationTargetException ex)
+			{
+				throw ex.getTargetException();
+			}
+
+			if(isWriteMethod(method))
+			{
+				TransactionUtils.runAfterCommit(() -> markModified(entityType));
+			}
+
+			return result;
+		};
+
+		return Proxy.newProxyInstance(repository.getClass().getClassLoader(), ClassUtils.getAllInterfacesForClass(repository.getClass()), handler);
+	}
+}
@@ -7,4 +7,12 @@ import com.webutils.services.common.UnauthenticatedRequestException;
 public interface IAuthorizationHandler
 {
 	public void checkAuthorization(HandlerMethod handlerMethod) throws UnauthenticatedRequestException;
+	
+	/**
+	 * Invoked once per handler method, to check if this handler has to be invoked for the method.
+	 */
+	public default boolean isApplicable(HandlerMethod handlerMethod)
+	{
+		return true;
+	}
 }
@@ -0,0 +1,46 @@
+package com.webutils.services.auth;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Assigns a dense index to each role name, so that role sets can be represented as bit masks and
+ * role checks become a mask intersection. Roles are registered as they are encountered, that is from
+ * authorization annotations during startup and from user roles later.
+ */
+@Component
+public class RoleRegistry
+{
+	private final Map<String, Integer> roleIndexes = new ConcurrentHashMap<>();
+	
+	private final AtomicInteger nextIndex = new AtomicInteger();
+	
+	/**
+	 * Fetches index of specified role, registering it if needed.
+	 */
+	public int indexOf(String role)
+	{
+		Integer index = roleIndexes.get(role);
+		return (index != null) ? index : roleIndexes.computeIfAbsent(role, key -> nextIndex.getAndIncrement());
+	}
+	
+	/**
+	 * Builds mask of specified roles. Returned mask should not be modified.
+	 */
+	public BitSet toMask(Collection<String> roles)
+	{
+		BitSet mask = new BitSet();
+		
+		if(roles != null)
+		{
+			roles.forEach(role -> mask.set(indexOf(role)));
+		}
+		
+		return mask;
+	}
+}
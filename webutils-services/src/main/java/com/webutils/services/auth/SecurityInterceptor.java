@@ -1,16 +1,23 @@
 package com.webutils.services.auth;
 
+import java.lang.reflect.Method;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
 import com.webutils.common.IWebUtilsConstants;
 import com.webutils.common.UserDetails;
@@ -45,6 +52,16 @@ public class SecurityInterceptor implements HandlerInterceptor
 	@Autowired(required = false)
 	private List<IAuthorizationHandler> authorizationHandlers;
 	
+	@Autowired
+	private RoleRegistry roleRegistry;
+	
+	/**
+	 * Security metadata by handler bean type and method. Handler method instances differ per request, but
+	 * the underlying method does not. Bean type is part of the key, as same inherited method can be mapped
+	 * by different controllers, for which applicable authorization handlers may differ.
+	 */
+	private Map<HandlerKey, HandlerSecurity> handlerSecurityMap = new ConcurrentHashMap<>();
+	
 	private String getSessionToken(HttpServletRequest request, boolean isAuthRequired)
     {
         // Check if valid header token is present
@@ -87,22 +104,80 @@ public class SecurityInterceptor implements HandlerInterceptor
         return sessionToken;
     }
 	
-	private void checkAuthorization(HandlerMethod handlerMethod)
+	/**
+	 * Security metadata of a handler method, resolved once per method.
+	 * @param roleMask mask of roles from authorization annotation, null if not annotated
+	 * @param handlers custom authorization handlers applicable for the method
+	 */
+	private record HandlerSecurity(boolean authRequired, BitSet roleMask, List<IAuthorizationHandler> handlers)
+	{}
+	
+	/**
+	 * Key of handler security metadata.
+	 */
+	private record HandlerKey(Class<?> beanType, Method method)
+	{}
+	
+	/**
+	 * Resolves security metadata of all mapped handler methods during startup.
+	 */
+	@EventListener
+	public void onContextRefresh(ContextRefreshedEvent event)
 	{
-        Authorization authorization = handlerMethod.getMethodAnnotation(Authorization.class);
-        securityService.checkAuthorization(authorization);
-        
-        if(authorizationHandlers == null)
-        {
-        	return;
-        }
+		for(RequestMappingHandlerMapping mapping : event.getApplicationContext().getBeansOfType(RequestMappingHandlerMapping.class).values())
+		{
+			mapping.getHandlerMethods().values().forEach(this::getHandlerSecurity);
+		}
+		
+		logger.debug("Resolved security metadata of {} handler methods", handlerSecurityMap.size());
+	}
+	
+	private HandlerSecurity getHandlerSecurity(HandlerMethod handlerMethod)
+	{
+		HandlerKey key = new HandlerKey(handlerMethod.getBeanType(), handlerMethod.getMethod());
+		HandlerSecurity security = handlerSecurityMap.get(key);
+		
+		if(security != null)
+		{
+			return security;
+		}
+		
+		return handlerSecurityMap.computeIfAbsent(key, k -> 
+		{
+	        Authorization authorization = handlerMethod.getMethodAnnotation(Authorization.class);
+	        BitSet roleMask = (authorization == null) ? null : roleRegistry.toMask(List.of(authorization.value()));
+	        
+	        List<IAuthorizationHandler> handlers = (authorizationHandlers == null) ? List.of() :
+	        	authorizationHandlers.stream().filter(handler -> handler.isApplicable(handlerMethod)).toList();
+	        
+	        return new HandlerSecurity(handlerMethod.getMethodAnnotation(NoAuthentication.class) == null, roleMask, handlers);
+		});
+	}
+	
+	private void checkAuthorization(HandlerMethod handlerMethod, HandlerSecurity security)
+	{
+		if(security.roleMask() != null)
+		{
+			securityService.checkAuthorization(true, security.roleMask());
+		}
         
-        for(IAuthorizationHandler handler : authorizationHandlers)
+        for(IAuthorizationHandler handler : security.handlers())
         {
         	handler.checkAuthorization(handlerMethod);
         }
 	}
 
+	private void sendRenewedToken(HttpServletResponse response, String token)
+	{
+		response.setHeader(IWebUtilsConstants.RENEWED_SESSION_TOKEN_HEADER, token);
+		
+		Cookie authCookie = new Cookie(IWebUtilsConstants.SESSION_TOKEN_HEADER, token);
+		authCookie.setHttpOnly(true);
+		authCookie.setSecure(true);
+		authCookie.setPath("/");
+		response.addCookie(authCookie);
+	}
+
 	/**
 	 * Spring prehandle method, which is used to check authorization.
 	 * @param request Request
@@ -139,8 +214,8 @@ public class SecurityInterceptor implements HandlerInterceptor
 
 		HandlerMethod handlerMethod = (HandlerMethod) handler;
 		
-		NoAuthentication noAuth = handlerMethod.getMethodAnnotation(NoAuthentication.class);
-		boolean isAuthRequired = (noAuth == null);
+		HandlerSecurity security = getHandlerSecurity(handlerMethod);
+		boolean isAuthRequired = security.authRequired();
 		
 		try 
         {
@@ -158,10 +233,17 @@ public class SecurityInterceptor implements HandlerInterceptor
             // Set current user context
             UserContext.setCurrentUser(userDetails);
             
+            // signed tokens get renewed by reissue, which has to be sent back to client
+            if(userDetails != null && sessionToken != null && userDetails.getAuthToken() != null 
+            		&& !sessionToken.equals(userDetails.getAuthToken()))
+            {
+            	sendRenewedToken(response, userDetails.getAuthToken());
+            }
+            
             // Continue with the request
             if(isAuthRequired)
             {
-            	checkAuthorization(handlerMethod);
+            	checkAuthorization(handlerMethod, security);
             }
             
             return true;
@@ -2,6 +2,7 @@ package com.webutils.services.common;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.OutputStream;
 
 import org.apache.commons.io.IOUtils;
@@ -14,6 +15,8 @@ import jakarta.servlet.http.HttpServletResponse;
 public final class AttachmentDownloadHelper
 {
 	public static final String MIME_MS_EXCEL_FILE = "application/vnd.ms-excel";
+	public static final String MIME_XLSX_FILE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+	public static final String MIME_CSV_FILE = "text/csv";
 
 	private AttachmentDownloadHelper()
 	{
@@ -42,4 +45,15 @@ public final class AttachmentDownloadHelper
 			}
 		}
 	}
+
+	/**
+	 * Sets attachment headers on specified response and returns its output stream, so that content can be
+	 * streamed to client as it is generated. Content length is not set, so the response is sent chunked.
+	 */
+	public static OutputStream openAttachmentStream(HttpServletResponse response, String fileName, String mimeType) throws IOException
+	{
+		response.setContentType(mimeType);
+		response.setHeader("Content-Disposition", String.format("attachment; filename=\"%s\"", fileName));
+		return response.getOutputStream();
+	}
 }
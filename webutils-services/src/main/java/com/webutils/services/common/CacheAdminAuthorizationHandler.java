@@ -0,0 +1,48 @@
+package com.webutils.services.common;
+
+import java.util.BitSet;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+
+import com.webutils.services.auth.IAuthorizationHandler;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Restricts {@link CacheAdminController} apis to users having one of the roles configured
+ * by "webutils.cache.admin.roles". Roles are configurable, so they can not be specified
+ * using authorization annotation.
+ */
+@Component
+public class CacheAdminAuthorizationHandler implements IAuthorizationHandler
+{
+	@Autowired
+	private SecurityService securityService;
+	
+	@Value("${webutils.cache.admin.roles:ADMIN}")
+	private Set<String> adminRoles;
+	
+	private BitSet adminRoleMask;
+	
+	@PostConstruct
+	private void init()
+	{
+		adminRoleMask = securityService.toRoleMask(adminRoles);
+	}
+	
+	@Override
+	public boolean isApplicable(HandlerMethod handlerMethod)
+	{
+		return CacheAdminController.class.isAssignableFrom(handlerMethod.getBeanType());
+	}
+	
+	@Override
+	public void checkAuthorization(HandlerMethod handlerMethod) throws UnauthenticatedRequestException
+	{
+		securityService.checkAuthorization(true, adminRoleMask);
+	}
+}
@@ -0,0 +1,57 @@
+package com.webutils.services.common;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.webutils.cache.CacheFactory;
+import com.webutils.cache.CacheStats;
+import com.webutils.common.response.BaseResponse;
+import com.webutils.common.response.BasicListResponse;
+import com.webutils.common.response.BasicReadResponse;
+
+/**
+ * Admin apis to inspect and clear caches created via {@link CacheFactory}. Accessible only
+ * to users having one of the roles configured by "webutils.cache.admin.roles", which is
+ * checked by {@link CacheAdminAuthorizationHandler}.
+ */
+@RestController
+@RequestMapping("/api/admin/cache")
+public class CacheAdminController
+{
+	@Autowired
+	private CacheFactory cacheFactory;
+	
+	@GetMapping("/list")
+	public BasicListResponse<CacheStats> list()
+	{
+		return new BasicListResponse<>(cacheFactory.getAllStats());
+	}
+	
+	@GetMapping("/stats/{name}")
+	public BasicReadResponse<CacheStats> stats(@PathVariable("name") String name)
+	{
+		CacheStats stats = cacheFactory.getStats(name);
+		
+		if(stats == null)
+		{
+			throw new InvalidRequestException("Invalid cache name specified: {}", name);
+		}
+		
+		return new BasicReadResponse<>(stats);
+	}
+	
+	@DeleteMapping("/clear/{name}")
+	public BaseResponse clear(@PathVariable("name") String name)
+	{
+		if(!cacheFactory.clearCache(name))
+		{
+			throw new InvalidRequestException("Invalid cache name specified: {}", name);
+		}
+		
+		return new BaseResponse();
+	}
+}
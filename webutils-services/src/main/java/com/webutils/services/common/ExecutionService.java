@@ -7,6 +7,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.stereotype.Service;
@@ -85,11 +86,13 @@ public class ExecutionService
     {
         private String name;
         private Runnable task;
+        private Level logLevel;
         
-        public ScheduledTask(String name, Runnable task)
+        public ScheduledTask(String name, Runnable task, Level logLevel)
         {
             this.name = name;
             this.task = task;
+            this.logLevel = logLevel;
         }
 
         @Override
@@ -100,7 +103,7 @@ public class ExecutionService
         	
             try
             {
-                logger.info("Executing scheduled task '{}'", name);
+                logger.log(logLevel, "Executing scheduled task '{}'", name);
                 task.run();
             }catch(Exception ex)
             {
@@ -115,10 +118,19 @@ public class ExecutionService
     private ScheduledExecutorService executorService = Executors.newScheduledThreadPool(10);
 
     public void scheduleRepeatedTask(String name, Runnable task, long period, TimeUnit periodUnit)
+    {
+    	scheduleRepeatedTask(name, task, period, periodUnit, Level.INFO);
+    }
+
+    /**
+     * Schedules repeated task, whose executions are logged with specified level. Useful to avoid
+     * noise from tasks running every few seconds.
+     */
+    public void scheduleRepeatedTask(String name, Runnable task, long period, TimeUnit periodUnit, Level logLevel)
     {
     	logger.debug("Submiting repeated task [Name: {}, Duration: {} {}]", name, period, periodUnit);
 
-    	ScheduledTask scheduledTask = new ScheduledTask(name, task);
+    	ScheduledTask scheduledTask = new ScheduledTask(name, task, logLevel);
         executorService.scheduleAtFixedRate(scheduledTask, 10, period, periodUnit);
     }
 
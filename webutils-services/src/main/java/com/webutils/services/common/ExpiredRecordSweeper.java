@@ -0,0 +1,222 @@
+package com.webutils.services.common;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.webutils.common.IDistributedLockManager;
+import com.yukthitech.persistence.ICrudRepository;
+import com.yukthitech.persistence.repository.annotations.Operator;
+import com.yukthitech.persistence.repository.annotations.OrderByType;
+import com.yukthitech.persistence.OrderByField;
+import com.yukthitech.persistence.repository.search.SearchCondition;
+import com.yukthitech.persistence.repository.search.SearchQuery;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+
+/**
+ * Deletes expired records of registered tables in bounded chunks, instead of a single unbounded delete
+ * which would lock large tables for long. Each chunk fetches the ids of the oldest expired records (ordered
+ * by id) and deletes expired records up to the max id of the chunk. Chunks are separated by a pause and a
+ * run is limited to a max number of chunks, rest being left for next run.
+ * 
+ * When an {@link IDistributedLockManager} is available, sweeps of a target are done under a lock, so that
+ * only one node sweeps a table at a time. Such a sweep stops, leaving the rest as backlog, when the
+ * next chunk may not finish before the lock expires.
+ */
+@Service
+public class ExpiredRecordSweeper
+{
+	private static final Logger logger = LogManager.getLogger(ExpiredRecordSweeper.class);
+	
+	/**
+	 * Registered sweep target along with its stats.
+	 * @param expiredIdFetcher repository search method fetching ids of expired records for a query
+	 * @param deleter deletes records expired as of specified time with id less than or equal to specified id
+	 */
+	private record SweepTarget(String name, ICrudRepository<?> repository, String expiryField, 
+			Function<SearchQuery, List<IdQueryResult>> expiredIdFetcher, BiFunction<Date, Long, Integer> deleter,
+			AtomicLong removedCount, AtomicLong lastDurationMillis, AtomicLong backlog)
+	{}
+	
+	@Autowired
+	private ExecutionService executionService;
+	
+	@Autowired
+	private ObjectProvider<IDistributedLockManager> lockManagerProvider;
+	
+	@Autowired
+	private ObjectProvider<MeterRegistry> meterRegistryProvider;
+	
+	@Value("${webutils.sweeper.chunkSize:1000}")
+	private int chunkSize;
+	
+	@Value("${webutils.sweeper.pauseMillis:200}")
+	private long pauseMillis;
+	
+	@Value("${webutils.sweeper.maxChunksPerRun:100}")
+	private int maxChunksPerRun;
+	
+	private Map<String, SweepTarget> targets = new ConcurrentHashMap<>();
+	
+	/**
+	 * Registers a table to be swept at specified interval.
+	 * @param name name of the target, used in logs, lock name and metrics
+	 * @param repository repository of the table, used to compute backlog
+	 * @param expiryField entity field holding expiry time
+	 * @param expiredIdFetcher repository search method returning ids for query built by sweeper
+	 * @param deleter repository method deleting records with expiry less than specified time and id less
+	 * than or equal to specified id
+	 * @param intervalSec sweep interval
+	 */
+	public void register(String name, ICrudRepository<?> repository, String expiryField, 
+			Function<SearchQuery, List<IdQueryResult>> expiredIdFetcher, BiFunction<Date, Long, Integer> deleter, long intervalSec)
+	{
+		SweepTarget target = new SweepTarget(name, repository, expiryField, expiredIdFetcher, deleter, 
+				new AtomicLong(), new AtomicLong(), new AtomicLong());
+		
+		targets.put(name, target);
+		bindMetrics(target);
+		
+		executionService.scheduleRepeatedTask("ExpiredRecordSweeper." + name, () -> sweep(target), intervalSec, TimeUnit.SECONDS);
+	}
+	
+	private void bindMetrics(SweepTarget target)
+	{
+		MeterRegistry registry = meterRegistryProvider.getIfAvailable();
+		
+		if(registry == null)
+		{
+			return;
+		}
+		
+		FunctionCounter.builder("webutils.sweeper.removed", target, t -> t.removedCount().get())
+			.tag("target", target.name())
+			.description("Number of expired records removed")
+			.register(registry);
+		
+		TimeGauge.builder("webutils.sweeper.last.duration", target, TimeUnit.MILLISECONDS, t -> t.lastDurationMillis().get())
+			.tag("target", target.name())
+			.description("Time taken by last sweep")
+			.register(registry);
+		
+		Gauge.builder("webutils.sweeper.backlog", target, t -> t.backlog().get())
+			.tag("target", target.name())
+			.description("Expired records left after last sweep")
+			.register(registry);
+	}
+	
+	private void sweep(SweepTarget target)
+	{
+		IDistributedLockManager lockManager = lockManagerProvider.getIfAvailable();
+		
+		if(lockManager == null)
+		{
+			sweepChunks(target, Long.MAX_VALUE);
+			return;
+		}
+		
+		// lock is held for the expected sweep time, considering pauses; sweep stops before the lock expires.
+		int lockDurationMillis = (int) Math.min(Integer.MAX_VALUE, maxChunksPerRun * (pauseMillis + 1000L));
+		lockManager.lockAndExecute("ExpiredRecordSweeper." + target.name(), lockDurationMillis, 
+				() -> sweepChunks(target, System.currentTimeMillis() + lockDurationMillis));
+	}
+	
+	private SearchQuery newExpiredIdQuery(SweepTarget target, Date now)
+	{
+		SearchQuery query = new SearchQuery();
+		query.addCondition(new SearchCondition(target.expiryField(), Operator.LT, now));
+		query.setOrderByFields(List.of(new OrderByField("id", OrderByType.ASC)));
+		query.setResultsLimit(chunkSize);
+		return query;
+	}
+	
+	/**
+	 * Deletes expired records chunk by chunk. A chunk is started only if it is expected to finish
+	 * before specified deadline, expectation being based on the slowest chunk of this run.
+	 */
+	private void sweepChunks(SweepTarget target, long deadline)
+	{
+		long startTime = System.currentTimeMillis();
+		long removed = 0;
+		int chunkCount = 0;
+		long maxChunkMillis = 0;
+		boolean completed = false;
+		
+		while(chunkCount < maxChunksPerRun)
+		{
+			long chunkStartTime = System.currentTimeMillis();
+			
+			if(chunkStartTime + maxChunkMillis >= deadline)
+			{
+				logger.warn("Stopping sweep of {} as next chunk may not finish before lock expiry", target.name());
+				break;
+			}
+			
+			Date now = new Date();
+			List<IdQueryResult> ids = target.expiredIdFetcher().apply(newExpiredIdQuery(target, now));
+			
+			if(ids.isEmpty())
+			{
+				completed = true;
+				break;
+			}
+			
+			removed += target.deleter().apply(now, ids.get(ids.size() - 1).getId());
+			chunkCount++;
+			maxChunkMillis = Math.max(maxChunkMillis, System.currentTimeMillis() - chunkStartTime);
+			
+			if(ids.size() < chunkSize)
+			{
+				completed = true;
+				break;
+			}
+			
+			try
+			{
+				Thread.sleep(pauseMillis);
+			}
+			catch(InterruptedException ex)
+			{
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		
+		long backlog = 0;
+		
+		if(!completed)
+		{
+			SearchQuery countQuery = new SearchQuery();
+			countQuery.addCondition(new SearchCondition(target.expiryField(), Operator.LT, new Date()));
+			backlog = target.repository().searchCount(countQuery);
+		}
+		
+		long duration = System.currentTimeMillis() - startTime;
+		
+		target.removedCount().addAndGet(removed);
+		target.lastDurationMillis().set(duration);
+		target.backlog().set(backlog);
+		
+		if(removed > 0 || backlog > 0)
+		{
+			logger.info("Swept expired records of {} [Removed: {}, Chunks: {}, Time: {} ms, Backlog: {}]", 
+					target.name(), removed, chunkCount, duration, backlog);
+		}
+	}
+}
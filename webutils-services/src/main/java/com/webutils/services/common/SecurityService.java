@@ -1,8 +1,13 @@
 package com.webutils.services.common;
 
 import java.lang.reflect.AnnotatedElement;
-import java.util.Collections;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,6 +17,7 @@ import com.webutils.common.FileInfo;
 import com.webutils.common.UserDetails;
 import com.webutils.common.auth.Authorization;
 import com.webutils.common.auth.NoAuthentication;
+import com.webutils.services.auth.RoleRegistry;
 import com.webutils.services.auth.UserContext;
 
 @Service
@@ -19,8 +25,43 @@ public class SecurityService
 {
 	@Autowired
 	private IWebutilsService webutilsService;
+	
+	@Autowired
+	private RoleRegistry roleRegistry;
 
-	public void checkAuthorization(boolean isAuthRequired, Set<String> supportedRoles)
+	/**
+	 * Security details of an annotated element.
+	 * @param roleMask mask of authorized roles, null if not annotated with {@link Authorization}
+	 */
+	private record ElementSecurity(boolean authRequired, BitSet roleMask)
+	{}
+	
+	/**
+	 * Security details of elements checked so far.
+	 */
+	private Map<AnnotatedElement, ElementSecurity> elementSecurityMap = new ConcurrentHashMap<>();
+	
+	/**
+	 * Fetches role mask of specified user. The mask is set on user details when session is resolved,
+	 * this builds it for user details created otherwise.
+	 */
+	private BitSet getRoleMask(UserDetails userDetails)
+	{
+		BitSet roleMask = userDetails.getRoleMask();
+		
+		if(roleMask == null)
+		{
+			roleMask = roleRegistry.toMask(userDetails.getRoles());
+			userDetails.setRoleMask(roleMask);
+		}
+		
+		return roleMask;
+	}
+
+	/**
+	 * Checks if current user has any of the roles of specified mask (built by {@link RoleRegistry}).
+	 */
+	public void checkAuthorization(boolean isAuthRequired, BitSet supportedRoleMask)
 	{
 		UserDetails userDetails = UserContext.getCurrentUser();
 		
@@ -34,23 +75,38 @@ public class SecurityService
 			throw new UnauthenticatedRequestException("No user found on session");
 		}
 		
-		if(CollectionUtils.isEmpty(supportedRoles))
+		if(supportedRoleMask == null || supportedRoleMask.isEmpty())
 		{
 			return;
 		}
 		
-        Set<String> userRoles = userDetails.getRoles();
-        userRoles = (userRoles == null) ? Collections.emptySet() : userRoles;
-        
-        for(String role : supportedRoles)
-        {
-        	if(userRoles.contains(role))
-        	{
-        		return;
-        	}
-        }
-        
-        throw new UnauthorizedRequestException("User does not have required access");
+		if(!getRoleMask(userDetails).intersects(supportedRoleMask))
+		{
+			throw new UnauthorizedRequestException("User does not have required access");
+		}
+	}
+	
+	/**
+	 * Builds mask of specified roles, ignoring null role names. Callers checking same roles repeatedly
+	 * should build the mask once and use {@link #checkAuthorization(boolean, BitSet)}.
+	 */
+	public BitSet toRoleMask(Collection<String> roles)
+	{
+		if(CollectionUtils.isEmpty(roles))
+		{
+			return null;
+		}
+		
+		return roleRegistry.toMask(roles.stream().filter(Objects::nonNull).toList());
+	}
+	
+	/**
+	 * Checks if current user has any of specified roles. The role mask is built on every call, 
+	 * prefer {@link #checkAuthorization(boolean, BitSet)} for repeated checks.
+	 */
+	public void checkAuthorization(boolean isAuthRequired, Set<String> supportedRoles)
+	{
+		checkAuthorization(isAuthRequired, toRoleMask(supportedRoles));
 	}
 	
 	/**
@@ -65,7 +121,7 @@ public class SecurityService
         	return;
         }
         
-        checkAuthorization(true, Set.of(authorization.value()));
+        checkAuthorization(true, toRoleMask(List.of(authorization.value())));
 	}
 	
 	/**
@@ -75,12 +131,15 @@ public class SecurityService
 	 */
 	public void checkAuthorization(AnnotatedElement annotatedElement)
 	{
-		Authorization authorization = annotatedElement.getAnnotation(Authorization.class);
+		ElementSecurity security = elementSecurityMap.computeIfAbsent(annotatedElement, element -> 
+		{
+			Authorization authorization = element.getAnnotation(Authorization.class);
+			
+			return new ElementSecurity(element.getAnnotation(NoAuthentication.class) == null,
+					(authorization == null) ? null : roleRegistry.toMask(List.of(authorization.value())));
+		});
 		
-		checkAuthorization(
-				annotatedElement.getAnnotation(NoAuthentication.class) == null, 
-				authorization == null ? null : Set.of(authorization.value())
-				);
+		checkAuthorization(security.authRequired(), security.roleMask());
 	}
 	
 	public void checkFileAuthorization(FileInfo fileInfo)
@@ -0,0 +1,112 @@
+package com.webutils.services.common;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.webutils.common.IWebUtilsConstants;
+import com.yukthitech.utils.exceptions.InvalidStateException;
+
+/**
+ * Response serialized to json once, along with strong etag computed from the content. Used
+ * to serve immutable definitions (models, lovs) without serializing them on every request and
+ * to answer conditional requests with 304.
+ */
+public final class SerializedResponse
+{
+	/**
+	 * Clients can keep the response, but should revalidate it on every use, as content
+	 * depends on authorization and data that may change.
+	 */
+	private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+	
+	private final byte[] json;
+	
+	private final String etag;
+	
+	private SerializedResponse(byte[] json)
+	{
+		this.json = json;
+		
+		try
+		{
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+			this.etag = "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16)) + "\"";
+		}
+		catch(NoSuchAlgorithmException ex)
+		{
+			throw new InvalidStateException("Failed to compute etag", ex);
+		}
+	}
+	
+	public static SerializedResponse of(Object response)
+	{
+		try
+		{
+			return new SerializedResponse(IWebUtilsConstants.OBJECT_MAPPER.writeValueAsBytes(response));
+		}
+		catch(JsonProcessingException ex)
+		{
+			throw new InvalidStateException("Failed to serialize response of type: {}", response.getClass().getName(), ex);
+		}
+	}
+	
+	public String getEtag()
+	{
+		return etag;
+	}
+	
+	private boolean isMatching(String ifNoneMatch)
+	{
+		if(ifNoneMatch == null)
+		{
+			return false;
+		}
+		
+		for(String tag : ifNoneMatch.split(","))
+		{
+			tag = tag.trim();
+			
+			// weak comparison, as proxies may weaken the etag on compression
+			if(tag.startsWith("W/"))
+			{
+				tag = tag.substring(2);
+			}
+			
+			if(tag.equals("*") || tag.equals(etag))
+			{
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Builds response entity for a request with specified If-None-Match header. If the header
+	 * matches the etag, a 304 response without body is returned.
+	 */
+	public ResponseEntity<byte[]> toResponseEntity(String ifNoneMatch)
+	{
+		if(isMatching(ifNoneMatch))
+		{
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+				.eTag(etag)
+				.cacheControl(CACHE_CONTROL)
+				.build();
+		}
+		
+		return ResponseEntity.ok()
+			.contentType(MediaType.APPLICATION_JSON)
+			.eTag(etag)
+			.cacheControl(CACHE_CONTROL)
+			.body(json);
+	}
+}
@@ -0,0 +1,144 @@
+package com.webutils.services.form.captcha;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Bounded pool of pre-rendered captchas. Worker threads keep the pool filled in background
+ * (blocking while it is full), so that captcha requests need not render and encode
+ * images on request thread. When the pool is drained, captchas are rendered on caller thread.
+ */
+class CaptchaImagePool
+{
+	private static Logger logger = LogManager.getLogger(CaptchaImagePool.class);
+	
+	/**
+	 * Initial pause of a worker after render failure, doubled on each consecutive failure.
+	 */
+	private static final long MIN_FAILURE_PAUSE_MILLIS = 100;
+	
+	private static final long MAX_FAILURE_PAUSE_MILLIS = 30_000;
+	
+	/**
+	 * Rendered captcha.
+	 * @param base64Img base64 encoded png image
+	 */
+	record RenderedCaptcha(String answer, String base64Img)
+	{}
+	
+	private final BlockingQueue<RenderedCaptcha> pool;
+	
+	private final Supplier<RenderedCaptcha> renderer;
+	
+	private final ExecutorService workers;
+	
+	private final AtomicLong renderedCount = new AtomicLong();
+	
+	private final AtomicLong missCount = new AtomicLong();
+	
+	CaptchaImagePool(int size, int workerCount, Supplier<RenderedCaptcha> renderer)
+	{
+		this.pool = new ArrayBlockingQueue<>(size);
+		this.renderer = renderer;
+		
+		AtomicInteger threadIndex = new AtomicInteger();
+		
+		this.workers = Executors.newFixedThreadPool(workerCount, runnable -> 
+		{
+			Thread thread = new Thread(runnable, "CaptchaImagePool-" + threadIndex.incrementAndGet());
+			thread.setDaemon(true);
+			thread.setPriority(Thread.NORM_PRIORITY - 1);
+			return thread;
+		});
+		
+		for(int i = 0; i < workerCount; i++)
+		{
+			workers.execute(this::fill);
+		}
+	}
+	
+	private void fill()
+	{
+		long failurePause = 0;
+		
+		while(!Thread.currentThread().isInterrupted())
+		{
+			try
+			{
+				RenderedCaptcha captcha = renderer.get();
+				renderedCount.incrementAndGet();
+				failurePause = 0;
+				pool.put(captcha);
+			}
+			catch(InterruptedException ex)
+			{
+				Thread.currentThread().interrupt();
+			}
+			catch(RuntimeException ex)
+			{
+				// back off on repeated failures, so that a broken renderer does not keep the cores busy
+				failurePause = (failurePause == 0) ? MIN_FAILURE_PAUSE_MILLIS : Math.min(failurePause * 2, MAX_FAILURE_PAUSE_MILLIS);
+				logger.error("Failed to render captcha for pool. Retrying after {} ms", failurePause, ex);
+				
+				try
+				{
+					Thread.sleep(failurePause);
+				}
+				catch(InterruptedException iex)
+				{
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Fetches a pre-rendered captcha. If pool is empty, captcha is rendered on caller thread.
+	 */
+	RenderedCaptcha take()
+	{
+		RenderedCaptcha captcha = pool.poll();
+		
+		if(captcha != null)
+		{
+			return captcha;
+		}
+		
+		missCount.incrementAndGet();
+		return renderer.get();
+	}
+	
+	int size()
+	{
+		return pool.size();
+	}
+	
+	/**
+	 * Number of captchas rendered by workers so far, rate of which gives the refill rate.
+	 */
+	long getRenderedCount()
+	{
+		return renderedCount.get();
+	}
+	
+	/**
+	 * Number of times pool was found empty.
+	 */
+	long getMissCount()
+	{
+		return missCount.get();
+	}
+	
+	void shutdown()
+	{
+		workers.shutdownNow();
+	}
+}
@@ -2,6 +2,7 @@ package com.webutils.services.form.captcha;
 
 import java.awt.Color;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.Base64;
 import java.util.Objects;
 import java.util.Random;
@@ -10,6 +11,7 @@ import javax.imageio.ImageIO;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -17,12 +19,17 @@ import org.springframework.stereotype.Service;
 import com.webutils.common.form.captcha.CaptchaResponse;
 import com.webutils.common.form.captcha.CaptchaValidationResult;
 import com.webutils.common.form.captcha.CaptchaValidator;
+import com.webutils.services.form.captcha.CaptchaImagePool.RenderedCaptcha;
 import com.webutils.services.form.captcha.CaptchaValueFactory.CaptchaValue;
 import com.webutils.services.form.token.TokenLookupResult;
 import com.webutils.services.form.token.TokenManager;
 import com.yukthitech.utils.exceptions.InvalidStateException;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import nl.captcha.Captcha;
 import nl.captcha.backgrounds.GradiatedBackgroundProducer;
 import nl.captcha.gimpy.FishEyeGimpyRenderer;
@@ -71,9 +78,32 @@ public class CaptchaService
 	@Autowired
 	private TokenManager tokenManager;
 
+	@Autowired
+	private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
 	@Value("${webutils.form.captcha.expiryTimeSec:600}")
 	private int captchaExpiryTimeSec;
 	
+	/**
+	 * Number of pre-rendered captchas to be maintained, zero to render on request.
+	 */
+	@Value("${webutils.form.captcha.pool.size:200}")
+	private int poolSize;
+	
+	/**
+	 * Number of threads rendering captchas for pool, zero to use number of available cores.
+	 */
+	@Value("${webutils.form.captcha.pool.workers:0}")
+	private int poolWorkers;
+	
+	/**
+	 * Pool of pre-rendered captchas, created on first captcha request, so that worker
+	 * threads are not started by applications not using captchas.
+	 */
+	private volatile CaptchaImagePool imagePool;
+	
+	private volatile boolean destroyed = false;
+	
 	@PostConstruct
 	private void init()
 	{
@@ -93,14 +123,68 @@ public class CaptchaService
 			return validate(valueWithToken.getToken(), valueWithToken.getValue());
 		});
 	}
-
-	public CaptchaResponse generate() throws Exception
+	
+	/**
+	 * Fetches the image pool, starting it on first invocation.
+	 * @return image pool, null if pooling is disabled
+	 */
+	private CaptchaImagePool getImagePool()
 	{
-		if(tokenManager.isDisabled())
+		if(poolSize <= 0 || imagePool != null)
 		{
-			throw new InvalidStateException("Captcha service is disabled");
+			return imagePool;
 		}
-
+		
+		synchronized(this)
+		{
+			if(imagePool == null && !destroyed)
+			{
+				int workerCount = (poolWorkers > 0) ? poolWorkers : Runtime.getRuntime().availableProcessors();
+				logger.info("Starting captcha pool [Size: {}, Workers: {}]", poolSize, workerCount);
+				
+				imagePool = new CaptchaImagePool(poolSize, workerCount, this::render);
+				bindMetrics();
+			}
+		}
+		
+		return imagePool;
+	}
+	
+	private void bindMetrics()
+	{
+		MeterRegistry registry = meterRegistryProvider.getIfAvailable();
+		
+		if(registry == null)
+		{
+			return;
+		}
+		
+		Gauge.builder("webutils.captcha.pool.size", imagePool, CaptchaImagePool::size)
+			.description("Number of pre-rendered captchas available")
+			.register(registry);
+		
+		FunctionCounter.builder("webutils.captcha.pool.rendered", imagePool, CaptchaImagePool::getRenderedCount)
+			.description("Number of captchas rendered by pool workers")
+			.register(registry);
+		
+		FunctionCounter.builder("webutils.captcha.pool.misses", imagePool, CaptchaImagePool::getMissCount)
+			.description("Number of captcha requests which found pool empty")
+			.register(registry);
+	}
+	
+	@PreDestroy
+	private synchronized void destroy()
+	{
+		destroyed = true;
+		
+		if(imagePool != null)
+		{
+			imagePool.shutdown();
+		}
+	}
+	
+	private RenderedCaptcha render()
+	{
 		CaptchaValue captchaValue = CaptchaValueFactory.generate();
 		
 		Captcha.Builder builder = new Captcha.Builder(200, 50)
@@ -112,12 +196,30 @@ public class CaptchaService
 		Captcha captcha = builder.build();
 		
 		ByteArrayOutputStream bos = new ByteArrayOutputStream();
-		ImageIO.write(captcha.getImage(), "png", bos);
-		bos.flush();
 		
-		String base64Img = Base64.getEncoder().encodeToString(bos.toByteArray());
-		String token = tokenManager.saveToken(captchaValue.getAnswer(), captchaExpiryTimeSec);
-		return new CaptchaResponse(base64Img, token);
+		try
+		{
+			ImageIO.write(captcha.getImage(), "png", bos);
+		}
+		catch(IOException ex)
+		{
+			throw new InvalidStateException("Failed to encode captcha image", ex);
+		}
+		
+		return new RenderedCaptcha(captchaValue.getAnswer(), Base64.getEncoder().encodeToString(bos.toByteArray()));
+	}
+
+	public CaptchaResponse generate() throws Exception
+	{
+		if(tokenManager.isDisabled())
+		{
+			throw new InvalidStateException("Captcha service is disabled");
+		}
+
+		CaptchaImagePool pool = getImagePool();
+		RenderedCaptcha captcha = (pool != null) ? pool.take() : render();
+		String token = tokenManager.saveToken(captcha.answer(), captchaExpiryTimeSec);
+		return new CaptchaResponse(captcha.base64Img(), token);
 	}
 	
 	/**
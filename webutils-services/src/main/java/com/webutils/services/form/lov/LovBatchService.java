@@ -0,0 +1,241 @@
+package com.webutils.services.form.lov;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.webutils.common.UserDetails;
+import com.webutils.common.form.model.LovType;
+import com.webutils.lov.LovFetchRequest;
+import com.webutils.lov.LovFetchResult;
+import com.webutils.lov.LovOption;
+import com.webutils.services.auth.UserContext;
+import com.webutils.services.common.InvalidRequestException;
+import com.webutils.services.form.lov.stored.StoredLovService;
+import com.yukthitech.utils.exceptions.InvalidStateException;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Fetches options of multiple lovs in single call. Stored lovs are loaded in single query and
+ * dynamic lov methods are invoked in parallel. Failure of any lov fails the whole request, so that
+ * results are never partial.
+ */
+@Service
+public class LovBatchService
+{
+	@Autowired
+	private LovService lovService;
+
+	@Autowired
+	private StoredLovService storedLovService;
+
+	/**
+	 * Max number of lovs that can be fetched in single call.
+	 */
+	@Value("${webutils.lov.batch.maxSize:50}")
+	private int maxBatchSize;
+
+	/**
+	 * Number of threads used to invoke dynamic lov methods.
+	 */
+	@Value("${webutils.lov.batch.threads:8}")
+	private int threadCount;
+	
+	/**
+	 * Max time to wait for dynamic lovs fetched in parallel.
+	 */
+	@Value("${webutils.lov.batch.timeoutSec:30}")
+	private long timeoutSec;
+
+	private ExecutorService dynamicLovExecutor;
+
+	@PostConstruct
+	private void init()
+	{
+		AtomicInteger threadIndex = new AtomicInteger();
+
+		dynamicLovExecutor = Executors.newFixedThreadPool(threadCount, runnable ->
+		{
+			Thread thread = new Thread(runnable, "LovBatchService-" + threadIndex.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@PreDestroy
+	private void destroy()
+	{
+		dynamicLovExecutor.shutdownNow();
+	}
+
+	/**
+	 * Fetches options of specified lovs.
+	 * @return results in the order of requests
+	 */
+	public List<LovFetchResult> fetchLovs(List<LovFetchRequest> requests)
+	{
+		if(requests == null || requests.isEmpty())
+		{
+			throw new InvalidRequestException("No lovs specified for fetch");
+		}
+
+		if(requests.size() > maxBatchSize)
+		{
+			throw new InvalidRequestException("Number of lovs requested ({}) exceeds max allowed: {}", requests.size(), maxBatchSize);
+		}
+
+		LovOptionsHolder[] options = new LovOptionsHolder[requests.size()];
+		Set<String> storedLovNames = new LinkedHashSet<>();
+		List<Integer> dynamicIndexes = new ArrayList<>();
+
+		for(int i = 0; i < options.length; i++)
+		{
+			LovFetchRequest request = requests.get(i);
+			options[i] = new LovOptionsHolder();
+
+			if(request.getType() == LovType.STATIC_TYPE)
+			{
+				options[i].options = lovService.getEnumLovIndex(request.getName()).getOptions();
+			}
+			else if(request.getType() == LovType.DYNAMIC_TYPE)
+			{
+				// similar to fetchDependentLov, parent value is not used for dynamic lovs
+				dynamicIndexes.add(i);
+			}
+			else if(StringUtils.isNotBlank(request.getParentValue()))
+			{
+				options[i].options = storedLovService.getChildLovOptions(request.getName(), request.getParentValue());
+			}
+			else
+			{
+				storedLovNames.add(request.getName());
+			}
+		}
+
+		List<CompletableFuture<Void>> futures = submitDynamicLovs(requests, dynamicIndexes, options);
+
+		if(!storedLovNames.isEmpty())
+		{
+			Map<String, LovIndex> storedIndexes = storedLovService.getLovIndexes(storedLovNames);
+
+			for(int i = 0; i < options.length; i++)
+			{
+				LovFetchRequest request = requests.get(i);
+
+				if(request.getType() == LovType.STORED_TYPE && options[i].options == null)
+				{
+					options[i].options = storedIndexes.get(request.getName()).getOptions();
+				}
+			}
+		}
+
+		awaitDynamicLovs(futures);
+
+		List<LovFetchResult> results = new ArrayList<>(options.length);
+
+		for(int i = 0; i < options.length; i++)
+		{
+			LovFetchRequest request = requests.get(i);
+			results.add(new LovFetchResult(request.getType(), request.getName(), request.getParentValue(), options[i].options));
+		}
+
+		return results;
+	}
+
+	/**
+	 * Submits dynamic lovs for parallel execution. When there is only one, it is
+	 * executed on the caller thread.
+	 */
+	private List<CompletableFuture<Void>> submitDynamicLovs(List<LovFetchRequest> requests, List<Integer> dynamicIndexes, LovOptionsHolder[] options)
+	{
+		if(dynamicIndexes.size() == 1)
+		{
+			int index = dynamicIndexes.get(0);
+			options[index].options = lovService.getDynamicLovIndex(requests.get(index).getName()).getOptions();
+			return List.of();
+		}
+
+		UserDetails currentUser = UserContext.getCurrentUser();
+		List<CompletableFuture<Void>> futures = new ArrayList<>(dynamicIndexes.size());
+
+		for(int index : dynamicIndexes)
+		{
+			String lovName = requests.get(index).getName();
+			LovOptionsHolder holder = options[index];
+
+			futures.add(CompletableFuture.runAsync(() ->
+			{
+				UserContext.setCurrentUser(currentUser);
+
+				try
+				{
+					holder.options = lovService.getDynamicLovIndex(lovName).getOptions();
+				}
+				finally
+				{
+					UserContext.clear();
+				}
+			}, dynamicLovExecutor));
+		}
+
+		return futures;
+	}
+
+	private void awaitDynamicLovs(List<CompletableFuture<Void>> futures)
+	{
+		if(futures.isEmpty())
+		{
+			return;
+		}
+
+		try
+		{
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(timeoutSec, TimeUnit.SECONDS);
+		}
+		catch(ExecutionException ex)
+		{
+			if(ex.getCause() instanceof RuntimeException cause)
+			{
+				throw cause;
+			}
+
+			throw new InvalidStateException("Failed to fetch dynamic lovs", ex.getCause());
+		}
+		catch(TimeoutException ex)
+		{
+			// lov methods still running are left to complete on their threads, their results are ignored
+			futures.forEach(future -> future.cancel(true));
+			throw new InvalidStateException("Dynamic lovs could not be fetched within {} seconds", timeoutSec);
+		}
+		catch(InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			futures.forEach(future -> future.cancel(true));
+			throw new InvalidStateException("Interrupted while fetching dynamic lovs", ex);
+		}
+	}
+
+	/**
+	 * Holder for options of a single request, which may be filled by a different thread.
+	 */
+	private static class LovOptionsHolder
+	{
+		private volatile List<LovOption> options;
+	}
+}
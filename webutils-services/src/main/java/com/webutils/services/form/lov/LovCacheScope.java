@@ -0,0 +1,23 @@
+package com.webutils.services.form.lov;
+
+/**
+ * Scope in which cached options of a dynamic LOV are shared.
+ * @author akiran
+ */
+public enum LovCacheScope
+{
+	/**
+	 * Options are same for all users.
+	 */
+	GLOBAL,
+	
+	/**
+	 * Options are shared by users of same custom space.
+	 */
+	CUSTOM_SPACE,
+	
+	/**
+	 * Options are specific to current user.
+	 */
+	USER
+}
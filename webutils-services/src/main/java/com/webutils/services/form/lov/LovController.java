@@ -24,9 +24,14 @@
 package com.webutils.services.form.lov;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -34,8 +39,13 @@ import com.webutils.common.auth.Authorization;
 import com.webutils.common.auth.NoAuthentication;
 import com.webutils.common.form.model.LovType;
 import com.webutils.common.response.BasicListResponse;
+import com.webutils.lov.BulkLovFetchRequest;
+import com.webutils.lov.LovFetchResult;
 import com.webutils.lov.LovOption;
 import com.webutils.services.form.lov.stored.StoredLovService;
+
+import jakarta.validation.Valid;
+
 /**
  * Controller for fetching LOV values.
  * @author akiran
@@ -53,6 +63,9 @@ public class LovController
 	@Autowired
 	private StoredLovService storedLovService;
 	
+	@Autowired
+	private LovBatchService lovBatchService;
+	
 	/**
 	 * Note: Authentication is handled at model class level using {@link NoAuthentication} and {@link Authorization} annotations.
 	 * For stored lov, it is at entity level.
@@ -63,18 +76,26 @@ public class LovController
 	@NoAuthentication
 	@ResponseBody
 	@RequestMapping(value = "/fetch/{type}/{name}", method = RequestMethod.GET)
-	public BasicListResponse<LovOption> fetchLov(@PathVariable("type") LovType lovType, @PathVariable("name") String lovName)
+	public ResponseEntity<byte[]> fetchLov(@PathVariable("type") LovType lovType, @PathVariable("name") String lovName,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch)
 	{
+		LovIndex lovIndex = null;
+		
 		if(lovType == LovType.STATIC_TYPE)
 		{
-			return new BasicListResponse<LovOption>( lovService.getEnumLovValues(lovName) );
+			lovIndex = lovService.getEnumLovIndex(lovName);
 		}
 		else if(lovType == LovType.DYNAMIC_TYPE)
 		{
-			return new BasicListResponse<LovOption>( lovService.getDynamicLovValues(lovName) );
+			lovIndex = lovService.getDynamicLovIndex(lovName);
+		}
+		else
+		{
+			lovIndex = storedLovService.getLovIndex(lovName);
 		}
 		
-		return new BasicListResponse<LovOption>( storedLovService.getLovOptions(lovName) );
+		// indexes are immutable and cache their serialized form, changed options result in new index and etag
+		return lovIndex.getResponse().toResponseEntity(ifNoneMatch);
 	}
 
 	/**
@@ -108,4 +129,34 @@ public class LovController
 	{
 		return fetchDependentLov(lovName, lovType, parentValue);
 	}
+
+	/**
+	 * Fetches options of multiple lovs in single call, results are in the order of requests.
+	 * Similar to {@link #fetchLov}, authorization is checked per lov.
+	 */
+	@NoAuthentication
+	@ResponseBody
+	@RequestMapping(value = "/fetchAll", method = RequestMethod.POST)
+	public BasicListResponse<LovFetchResult> fetchLovs(@RequestBody @Valid BulkLovFetchRequest request)
+	{
+		return new BasicListResponse<LovFetchResult>( lovBatchService.fetchLovs(request.getLovs()) );
+	}
+
+	/**
+	 * Type-ahead search on stored lov options. Options whose label starts with the text come first,
+	 * followed by options having a word starting with the text. Authorization is checked at lov level.
+	 * @param text text to match, when empty first options (by label) are returned
+	 * @param parentValue parent option label, for child lovs
+	 * @param limit max number of options to return
+	 */
+	@NoAuthentication
+	@ResponseBody
+	@RequestMapping(value = "/search/{name}", method = RequestMethod.GET)
+	public BasicListResponse<LovOption> searchLov(@PathVariable("name") String lovName, 
+			@RequestParam(name = "text", required = false) String text,
+			@RequestParam(name = "parentValue", required = false) String parentValue,
+			@RequestParam(name = "limit", defaultValue = "20") int limit)
+	{
+		return new BasicListResponse<LovOption>( storedLovService.searchLovOptions(lovName, parentValue, text, limit) );
+	}
 }
@@ -0,0 +1,90 @@
+package com.webutils.services.form.lov;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.webutils.common.response.BasicListResponse;
+import com.webutils.lov.LovOption;
+import com.webutils.services.common.SerializedResponse;
+
+/**
+ * Immutable options of a LOV along with lookup structures, so that values can be validated
+ * without scanning the options.
+ */
+public class LovIndex
+{
+	private final List<LovOption> options;
+	
+	private final Set<String> optionIds;
+	
+	/**
+	 * Option labels keyed by lower case label.
+	 */
+	private final Map<String, String> labelsByLowerCase;
+	
+	/**
+	 * Options serialized as list response, computed on first use.
+	 */
+	private volatile SerializedResponse response;
+	
+	public LovIndex(List<LovOption> options)
+	{
+		this.options = List.copyOf(options);
+		
+		Set<String> optionIds = new HashSet<>();
+		Map<String, String> labelsByLowerCase = new HashMap<>();
+		
+		for(LovOption option : options)
+		{
+			optionIds.add(option.getId());
+			
+			if(option.getLabel() != null)
+			{
+				labelsByLowerCase.put(option.getLabel().toLowerCase(), option.getLabel());
+			}
+		}
+		
+		this.optionIds = optionIds;
+		this.labelsByLowerCase = labelsByLowerCase;
+	}
+	
+	public List<LovOption> getOptions()
+	{
+		return options;
+	}
+	
+	public boolean containsId(String id)
+	{
+		return optionIds.contains(id);
+	}
+	
+	/**
+	 * Fetches the option label matching specified label ignoring case.
+	 * @return matching label or null if no option has the label
+	 */
+	public String getLabel(String label)
+	{
+		return labelsByLowerCase.get(label.toLowerCase());
+	}
+	
+	/**
+	 * Fetches the options serialized as json list response. As the index is immutable, serialization
+	 * (and etag computation) is done only once, so that cached indexes are served without serializing
+	 * on every request.
+	 */
+	public SerializedResponse getResponse()
+	{
+		SerializedResponse response = this.response;
+		
+		if(response == null)
+		{
+			response = SerializedResponse.of(new BasicListResponse<LovOption>(options));
+			this.response = response;
+		}
+		
+		return response;
+	}
+}
@@ -41,4 +41,31 @@ public @interface LovMethod
 	 * @return Name of the LOV to be used by client
 	 */
 	public String name();
+	
+	/**
+	 * Time in seconds for which option ids of this LOV are reused to validate submitted values.
+	 * Zero disables reuse, in which case options are fetched on every validation.
+	 * @return Option id index refresh time
+	 */
+	public int indexRefreshSec() default 60;
+	
+	/**
+	 * Time in seconds for which options returned by this LOV are cached and served without
+	 * invoking the method. Zero (default) disables caching.
+	 * @return Cache time
+	 */
+	public int cacheSec() default 0;
+	
+	/**
+	 * Scope in which cached options (and option id index) are shared.
+	 * @return Cache scope
+	 */
+	public LovCacheScope cacheScope() default LovCacheScope.USER;
+	
+	/**
+	 * Group of this LOV, using which cached options can be invalidated along with other LOVs
+	 * depending on same data, via {@link LovService#invalidateLovGroup(String)}.
+	 * @return Cache group
+	 */
+	public String cacheGroup() default "";
 }
@@ -34,20 +34,28 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.event.ContextStartedEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import com.webutils.cache.CacheConfig;
+import com.webutils.cache.CacheFactory;
+import com.webutils.cache.ICache;
 import com.webutils.common.ServiceMethod;
+import com.webutils.common.UserDetails;
 import com.webutils.common.form.annotations.Label;
 import com.webutils.common.form.annotations.LovParentProvider;
 import com.webutils.lov.LovOption;
+import com.webutils.services.auth.UserContext;
 import com.webutils.services.common.ClassScannerService;
 import com.webutils.services.common.ConfgurationException;
 import com.webutils.services.common.InvalidRequestException;
@@ -72,6 +80,40 @@ public class LovService
 	@Autowired
 	private SecurityService securityService;
 	
+	@Autowired
+	private CacheFactory cacheFactory;
+	
+	/**
+	 * Time for which a value missing from a dynamic lov index does not trigger index rebuild again.
+	 */
+	@Value("${webutils.lov.dynamic.missReloadSec:10}")
+	private long missReloadSec;
+	
+	/**
+	 * Max number of rebuilds of a dynamic lov index (per scope) triggered by missing values within miss reload interval.
+	 */
+	@Value("${webutils.lov.dynamic.maxMissReloads:5}")
+	private int maxMissReloads;
+	
+	/**
+	 * Values (keyed by lov name, scope key and value) which triggered index rebuild recently. Entries expire after
+	 * miss reload interval, so that repeated invalid values do not invoke lov method on each request, while
+	 * different values still trigger rebuild.
+	 */
+	private ICache<String, Boolean> missReloadCache;
+	
+	/**
+	 * Number of rebuilds triggered by missing values, keyed by lov name and scope key, which caps rebuilds
+	 * caused by distinct invalid values.
+	 */
+	private ICache<String, AtomicInteger> missReloadCounts;
+	
+	/**
+	 * Options of an enum LOV, which never change.
+	 */
+	private record EnumLov(Class<?> enumType, LovIndex index)
+	{}
+	
 	/**
 	 * LOV method details cache.
 	 */
@@ -82,6 +124,29 @@ public class LovService
 	 */
 	private Map<String, ServiceMethod> nameToParentProvider = new HashMap<>();
 	
+	/**
+	 * Enum LOVs loaded so far.
+	 */
+	private Map<String, EnumLov> enumLovs = new ConcurrentHashMap<>();
+	
+	/**
+	 * Details of a dynamic lov.
+	 * @param optionsCache options keyed by scope key, null if options are neither cached nor indexed
+	 * @param cacheOptions true if options are served from cache, otherwise cache is used only for validation
+	 */
+	private record DynamicLov(ServiceMethod method, LovCacheScope cacheScope, ICache<String, LovIndex> optionsCache, boolean cacheOptions)
+	{}
+	
+	/**
+	 * Dynamic lovs keyed by name.
+	 */
+	private Map<String, DynamicLov> dynamicLovs = new HashMap<>();
+	
+	/**
+	 * Names of dynamic lovs keyed by cache group.
+	 */
+	private Map<String, List<String>> cacheGroups = new HashMap<>();
+	
 	private boolean initialized = false;
 	
 	/**
@@ -98,6 +163,14 @@ public class LovService
 		
 		initialized = true;
 		
+		missReloadCache = cacheFactory.getCache("LovService.dynamicLovMissReloads", new CacheConfig<String, Boolean>()
+				.expireAfterWrite(missReloadSec, TimeUnit.SECONDS)
+				.maxSize(10000));
+		
+		missReloadCounts = cacheFactory.getCache("LovService.dynamicLovMissReloadCounts", new CacheConfig<String, AtomicInteger>()
+				.expireAfterWrite(missReloadSec, TimeUnit.SECONDS)
+				.maxSize(10000));
+		
 		loadLovMethods(LovMethod.class, nameToLovMet);
 		loadLovMethods(LovQuery.class, nameToLovMet);
 
@@ -172,8 +245,54 @@ public class LovService
 			}
 			
 			nameToLovMet.put(name, serviceMethod);
+			
+			if(!LovParentProvider.class.equals(annotType))
+			{
+				dynamicLovs.put(name, newDynamicLov(name, serviceMethod, annot));
+			}
 		}
 	}
+	
+	private DynamicLov newDynamicLov(String name, ServiceMethod serviceMethod, Annotation annot)
+	{
+		int cacheSec = 0, indexRefreshSec = 0;
+		LovCacheScope cacheScope = null;
+		String cacheGroup = null;
+		
+		if(annot instanceof LovMethod lovMethod)
+		{
+			cacheSec = lovMethod.cacheSec();
+			indexRefreshSec = lovMethod.indexRefreshSec();
+			cacheScope = lovMethod.cacheScope();
+			cacheGroup = lovMethod.cacheGroup();
+		}
+		else if(annot instanceof LovQuery lovQuery)
+		{
+			cacheSec = lovQuery.cacheSec();
+			indexRefreshSec = lovQuery.indexRefreshSec();
+			cacheScope = lovQuery.cacheScope();
+			cacheGroup = lovQuery.cacheGroup();
+		}
+		
+		if(cacheGroup != null && cacheGroup.length() > 0)
+		{
+			cacheGroups.computeIfAbsent(cacheGroup, group -> new ArrayList<>()).add(name);
+		}
+		
+		int cacheTimeSec = (cacheSec > 0) ? cacheSec : indexRefreshSec;
+		
+		if(cacheTimeSec <= 0)
+		{
+			return new DynamicLov(serviceMethod, cacheScope, null, false);
+		}
+		
+		ICache<String, LovIndex> optionsCache = cacheFactory.getCache("LovService.dynamicLov." + name, 
+				new CacheConfig<String, LovIndex>()
+					.expireAfterWrite(cacheTimeSec, TimeUnit.SECONDS)
+					.maxSize(10000));
+		
+		return new DynamicLov(serviceMethod, cacheScope, optionsCache, cacheSec > 0);
+	}
 
 	private String getName(Annotation annot)
 	{
@@ -197,9 +316,32 @@ public class LovService
 	 * @param name Enum class name
 	 * @return List of LOVs as {@link ValueLabel}
 	 */
-	@Cacheable("default")
-	@SuppressWarnings("rawtypes")
 	public List<LovOption> getEnumLovValues(String name)
+	{
+		return getEnumLovIndex(name).getOptions();
+	}
+	
+	/**
+	 * Fetches index of specified enum LOV, built once per enum. Before returning user authorization will be validated.
+	 * @param name Enum class name
+	 * @return Index of enum LOV
+	 */
+	public LovIndex getEnumLovIndex(String name)
+	{
+		EnumLov enumLov = enumLovs.get(name);
+		
+		if(enumLov == null)
+		{
+			enumLov = loadEnumLov(name);
+			enumLovs.put(name, enumLov);
+		}
+		
+		securityService.checkAuthorization(enumLov.enumType());
+		return enumLov.index();
+	}
+
+	@SuppressWarnings("rawtypes")
+	private EnumLov loadEnumLov(String name)
 	{
 		try
 		{
@@ -211,8 +353,6 @@ public class LovService
 				throw new InvalidRequestException("Invalid enum type specified: " + name);
 			}
 			
-			securityService.checkAuthorization(enumType);
-
 			Object enumValues[] = enumType.getEnumConstants();
 			List<LovOption> valueLst = new ArrayList<>();
 			Enum<?> enumObj = null;
@@ -255,31 +395,99 @@ public class LovService
 				valueLst.add(new LovOption(enumObj.name(), label));
 			}
 			
-			return valueLst;
+			return new EnumLov(enumType, new LovIndex(valueLst));
 		}catch(ClassNotFoundException ex)
 		{
 			throw new InvalidRequestException("Failed to fetch enum LOV for specified type: " + name, ex);
 		}
 	}
 	
+	private DynamicLov getDynamicLov(String name)
+	{
+		DynamicLov dynamicLov = dynamicLovs.get(name);
+		
+		if(dynamicLov == null)
+		{
+			throw new InvalidParameterException("Invalid LOV name specified - " + name);
+		}
+		
+		securityService.checkAuthorization(dynamicLov.method().getMethod());
+		return dynamicLov;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private LovIndex loadDynamicLovIndex(DynamicLov dynamicLov)
+	{
+		return new LovIndex((List<LovOption>) dynamicLov.method().invoke());
+	}
+	
 	/**
-	 * Fetches dynamic LOV values based on the specified lov name. Before execution user authorization will be validated
+	 * Computes key of current context for specified scope.
+	 */
+	private String getScopeKey(LovCacheScope scope)
+	{
+		UserDetails userDetails = UserContext.getCurrentUser();
+		
+		if(userDetails == null || scope == LovCacheScope.GLOBAL)
+		{
+			return "";
+		}
+		
+		return (scope == LovCacheScope.CUSTOM_SPACE) ? "s:" + userDetails.getCustomSpace() : "u:" + userDetails.getId();
+	}
+
+	/**
+	 * Fetches dynamic LOV values based on the specified lov name. Before execution user authorization will be validated.
+	 * If lov method is cacheable, cached values will be returned.
 	 * @param name Lov name
 	 * @return dynamic LOV values based on the specified lov name
 	 */
-	@SuppressWarnings("unchecked")
 	public List<LovOption> getDynamicLovValues(String name)
 	{
-		ServiceMethod serviceMethod = nameToLovMet.get(name);
+		return getDynamicLovIndex(name).getOptions();
+	}
+	
+	/**
+	 * Fetches index of specified dynamic lov. If lov method is cacheable, cached index will be returned.
+	 * @param name Lov name
+	 * @return Index of the lov
+	 */
+	public LovIndex getDynamicLovIndex(String name)
+	{
+		DynamicLov dynamicLov = getDynamicLov(name);
 		
-		if(serviceMethod == null)
+		if(!dynamicLov.cacheOptions())
 		{
-			throw new InvalidParameterException("Invalid LOV name specified - " + name);
+			return loadDynamicLovIndex(dynamicLov);
 		}
 		
-		securityService.checkAuthorization(serviceMethod.getMethod());
+		return dynamicLov.optionsCache().computeIfAbsent(getScopeKey(dynamicLov.cacheScope()), () -> loadDynamicLovIndex(dynamicLov));
+	}
+	
+	/**
+	 * Invalidates cached options of dynamic lovs of specified group. To be invoked by services when 
+	 * data used by lovs of the group is modified.
+	 * @param cacheGroup Cache group to invalidate
+	 */
+	public void invalidateLovGroup(String cacheGroup)
+	{
+		List<String> lovNames = cacheGroups.get(cacheGroup);
+		
+		if(lovNames == null)
+		{
+			logger.debug("No dynamic lovs found under cache group: {}", cacheGroup);
+			return;
+		}
 		
-		return (List<LovOption>) serviceMethod.invoke();
+		for(String name : lovNames)
+		{
+			ICache<String, LovIndex> optionsCache = dynamicLovs.get(name).optionsCache();
+			
+			if(optionsCache != null)
+			{
+				optionsCache.clear();
+			}
+		}
 	}
 
 	/**
@@ -307,16 +515,64 @@ public class LovService
 	 */
 	public boolean isValidDynamicLov(String name)
 	{
-		return nameToLovMet.containsKey(name);
+		return dynamicLovs.containsKey(name);
 	}
 
 	public boolean isValidStaticLovValue(String name, String value)
 	{
-		return getEnumLovValues(name).stream().anyMatch(lov -> lov.getId().equals(value));
+		return getEnumLovIndex(name).containsId(value);
 	}
 
+	/**
+	 * Checks if specified value is a valid option id of specified dynamic lov. Unless disabled on
+	 * lov method, option ids are indexed and reused till the cache or index refresh time. When value is not
+	 * found in the index, the index is rebuilt once, so that newly added options are not rejected. A value
+	 * triggers rebuild at most once per miss reload interval, and rebuilds of a lov and scope are capped
+	 * by max miss reloads within the interval.
+	 * @param name Name of dynamic lov
+	 * @param value Value to check
+	 * @return true if value is a valid option id
+	 */
 	public boolean isValidDynamicLovValue(String name, String value)
 	{
-		return getDynamicLovValues(name).stream().anyMatch(lov -> lov.getId().equals(value));
+		DynamicLov dynamicLov = getDynamicLov(name);
+		
+		if(dynamicLov.optionsCache() == null)
+		{
+			return loadDynamicLovIndex(dynamicLov).containsId(value);
+		}
+		
+		String scopeKey = getScopeKey(dynamicLov.cacheScope());
+		LovIndex index = dynamicLov.optionsCache().computeIfAbsent(scopeKey, () -> loadDynamicLovIndex(dynamicLov));
+		
+		if(index.containsId(value))
+		{
+			return true;
+		}
+		
+		String reloadKey = name + "/" + scopeKey;
+		boolean[] reloadAllowed = {false};
+		
+		missReloadCache.computeIfAbsent(reloadKey + "/" + value, () -> 
+		{
+			reloadAllowed[0] = true;
+			return Boolean.TRUE;
+		});
+		
+		if(!reloadAllowed[0])
+		{
+			return false;
+		}
+		
+		if(missReloadCounts.computeIfAbsent(reloadKey, AtomicInteger::new).incrementAndGet() > maxMissReloads)
+		{
+			logger.debug("Skipping rebuild of dynamic lov {} index as max rebuilds are reached for current interval", name);
+			return false;
+		}
+		
+		logger.debug("Rebuilding index of dynamic lov {} as value is missing from the index", name);
+		index = loadDynamicLovIndex(dynamicLov);
+		dynamicLov.optionsCache().set(scopeKey, index);
+		return index.containsId(value);
 	}
 }
@@ -33,6 +33,7 @@ import com.yukthitech.persistence.repository.annotations.Condition;
 import com.yukthitech.persistence.repository.annotations.Field;
 import com.yukthitech.persistence.repository.annotations.Operator;
 import com.yukthitech.persistence.repository.annotations.OrderBy;
+import com.yukthitech.persistence.repository.search.SearchQuery;
 
 /**
  * Repository for managing stored LOV values.
@@ -61,4 +62,8 @@ public interface IStoredLovOptionRepository extends ICrudRepository<StoredLovOpt
 		@Condition("lov.name") String lovName, 
 		@Condition("label") String optionLabel);
 	
+	/**
+	 * Used to fetch options of multiple lovs in single query.
+	 */
+	public List<StoredLovOptionResult> searchLovOptions(SearchQuery searchQuery);
 }
@@ -0,0 +1,110 @@
+package com.webutils.services.form.lov.stored;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import com.webutils.lov.LovOption;
+
+/**
+ * Sorted index of lov options used for type-ahead search. Options are indexed by lower case label
+ * and by each word of the label (other than first), so that matches are found by range scans and
+ * search cost depends on number of results rather than number of options.
+ *
+ * Options can be added while index is being searched, so that newly saved options need not
+ * rebuild the index.
+ */
+class LovOptionSearchIndex
+{
+	/**
+	 * Separates indexed text and option id in index keys, sorts before any label character.
+	 */
+	private static final char KEY_SEPARATOR = '\u0000';
+
+	/**
+	 * Options keyed by "lower-case-label\0id".
+	 */
+	private final NavigableMap<String, LovOption> labelIndex = new ConcurrentSkipListMap<>();
+
+	/**
+	 * Options keyed by "lower-case-label-from-word-start\0id", for words other than first.
+	 */
+	private final NavigableMap<String, LovOption> wordIndex = new ConcurrentSkipListMap<>();
+
+	LovOptionSearchIndex(List<LovOption> options)
+	{
+		options.forEach(this::add);
+	}
+
+	/**
+	 * Adds specified option to the index.
+	 */
+	void add(LovOption option)
+	{
+		if(option.getLabel() == null)
+		{
+			return;
+		}
+
+		String text = option.getLabel().toLowerCase(Locale.ROOT);
+		labelIndex.put(text + KEY_SEPARATOR + option.getId(), option);
+
+		for(int i = 1; i < text.length(); i++)
+		{
+			if(!Character.isLetterOrDigit(text.charAt(i - 1)) && Character.isLetterOrDigit(text.charAt(i)))
+			{
+				wordIndex.put(text.substring(i) + KEY_SEPARATOR + option.getId(), option);
+			}
+		}
+	}
+
+	int size()
+	{
+		return labelIndex.size();
+	}
+
+	/**
+	 * Fetches options matching specified text ignoring case. Options whose label starts with the text
+	 * come first (sorted by label), followed by options having a word starting with the text (sorted by
+	 * label text from the matched word onwards).
+	 * @param text text to match, when empty first options (by label) are returned
+	 * @param limit max number of options to return
+	 */
+	List<LovOption> search(String text, int limit)
+	{
+		String prefix = text.trim().toLowerCase(Locale.ROOT);
+		List<LovOption> res = new ArrayList<>(Math.min(limit, 32));
+		Set<String> addedIds = new HashSet<>();
+
+		collect(labelIndex, prefix, limit, res, addedIds);
+
+		if(!prefix.isEmpty())
+		{
+			collect(wordIndex, prefix, limit, res, addedIds);
+		}
+
+		return res;
+	}
+
+	private void collect(NavigableMap<String, LovOption> index, String prefix, int limit, List<LovOption> res, Set<String> addedIds)
+	{
+		for(Map.Entry<String, LovOption> entry : index.tailMap(prefix, true).entrySet())
+		{
+			if(res.size() >= limit || !entry.getKey().startsWith(prefix))
+			{
+				return;
+			}
+
+			// an option can have multiple words matching the prefix
+			if(addedIds.add(entry.getValue().getId()))
+			{
+				res.add(entry.getValue());
+			}
+		}
+	}
+}
@@ -0,0 +1,21 @@
+package com.webutils.services.form.lov.stored;
+
+import com.yukthitech.persistence.repository.annotations.Field;
+
+import lombok.Data;
+
+/**
+ * Option along with its lov name, used to load options of multiple lovs in single query.
+ */
+@Data
+public class StoredLovOptionResult
+{
+	@Field("id")
+	private Long id;
+	
+	@Field("label")
+	private String label;
+	
+	@Field("lov.name")
+	private String lovName;
+}
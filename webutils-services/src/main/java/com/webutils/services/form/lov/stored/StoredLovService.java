@@ -15,32 +15,46 @@
  */
 package com.webutils.services.form.lov.stored;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.webutils.cache.CacheConfig;
 import com.webutils.cache.CacheFactory;
 import com.webutils.cache.ICache;
+import com.webutils.common.TransactionUtils;
 import com.webutils.common.repo.IMissingTableRepository;
 import com.webutils.lov.LovOption;
 import com.webutils.services.auth.UserContext;
 import com.webutils.services.common.SecurityService;
+import com.webutils.services.form.lov.LovIndex;
 import com.webutils.services.form.lov.LovService;
 import com.webutils.services.user.UserEntity;
+import com.yukthitech.persistence.OrderByField;
+import com.yukthitech.persistence.repository.annotations.Operator;
+import com.yukthitech.persistence.repository.annotations.OrderByType;
+import com.yukthitech.persistence.repository.search.SearchCondition;
+import com.yukthitech.persistence.repository.search.SearchQuery;
 import com.yukthitech.utils.exceptions.InvalidArgumentException;
 import com.yukthitech.utils.exceptions.InvalidStateException;
 
@@ -69,9 +83,54 @@ public class StoredLovService
 	@Autowired
 	private LovService lovService;
 
-	private ICache<String, List<LovOption>> lovOptionsCache;
+	/**
+	 * Options of lovs along with their index. Keys are either lov name or "parent-option-label/child-lov-name".
+	 */
+	private ICache<String, LovIndex> lovOptionsCache;
 	
 	private ICache<String, StoredLovEntity> lovCache;
+	
+	/**
+	 * Masks of authorized roles of lovs, built once as lovs are loaded.
+	 */
+	private Map<String, BitSet> lovRoleMasks = new HashMap<>();
+	
+	/**
+	 * Type-ahead search indexes of lovs, with same keys as options cache. Unlike options cache,
+	 * newly saved options are added to these indexes instead of reloading them.
+	 */
+	private ICache<String, LovOptionSearchIndex> searchIndexCache;
+	
+	/**
+	 * Names of lovs reloaded recently because of values missing from cached options. Entries
+	 * expire after miss reload interval, so that repeated invalid values do not reload options on each request.
+	 */
+	private ICache<String, Boolean> missReloadCache;
+	
+	/**
+	 * Time after which cached lov options are reloaded in background, so that options added
+	 * by other nodes get reflected without blocking requests.
+	 */
+	@Value("${webutils.lov.stored.optionsRefreshSec:300}")
+	private long optionsRefreshSec;
+	
+	/**
+	 * Max number of options (across lovs) held by type-ahead search indexes.
+	 */
+	@Value("${webutils.lov.stored.search.maxIndexedOptions:1000000}")
+	private long maxIndexedOptions;
+	
+	/**
+	 * Max number of options that can be fetched in single type-ahead search.
+	 */
+	@Value("${webutils.lov.stored.search.maxLimit:50}")
+	private int maxSearchLimit;
+	
+	/**
+	 * Min time between reloads of lov options triggered by values missing from cached options.
+	 */
+	@Value("${webutils.lov.stored.missReloadSec:10}")
+	private long missReloadSec;
 
 	@PostConstruct
 	private void init()
@@ -82,17 +141,33 @@ public class StoredLovService
 			return;
 		}
 		
-		lovOptionsCache = cacheFactory.getCache("storedLovService.lovOptions", new CacheConfig<String, List<LovOption>>()
-			.maxSize(50));
+		lovOptionsCache = cacheFactory.getCache("storedLovService.lovOptions", new CacheConfig<String, LovIndex>()
+			.maxSize(50)
+			.refreshAfterWrite(optionsRefreshSec, TimeUnit.SECONDS)
+			.loader(this::loadLovOptions));
+
+		searchIndexCache = cacheFactory.getCache("storedLovService.searchIndex", new CacheConfig<String, LovOptionSearchIndex>()
+			.maxWeight(maxIndexedOptions, (key, index) -> index.size() + 1)
+			.refreshAfterWrite(optionsRefreshSec, TimeUnit.SECONDS)
+			.loader(key -> new LovOptionSearchIndex(fetchLovOptionsOfKey(key))));
+
+		missReloadCache = cacheFactory.getCache("storedLovService.missReloads", new CacheConfig<String, Boolean>()
+			.expireAfterWrite(missReloadSec, TimeUnit.SECONDS)
+			.maxSize(1000));
 
 		lovCache = cacheFactory.getCache("storedLovService.lov", new CacheConfig<String, StoredLovEntity>());
 		
 		List<StoredLovEntity> lovEntities = lovRepository.fetchAll();
-
-		for(StoredLovEntity lovEntity : lovEntities)
-		{
-			lovCache.set(lovEntity.getName(), lovEntity);
-		}
+		
+		lovCache.putAll(lovEntities.stream()
+			.collect(Collectors.toMap(StoredLovEntity::getName, lovEntity -> lovEntity)));
+		
+		lovEntities.forEach(lovEntity -> lovRoleMasks.put(lovEntity.getName(), securityService.toRoleMask(lovEntity.getAuthorizedRoles())));
+	}
+	
+	private void checkAuthorization(StoredLovEntity lovEntity)
+	{
+		securityService.checkAuthorization(lovEntity.isAuthRequired(), lovRoleMasks.get(lovEntity.getName()));
 	}
 
 	private List<LovOption> fetchLovOptionsFromDb(String lovName)
@@ -103,7 +178,46 @@ public class StoredLovService
 			.collect(Collectors.toList());
 	}
 
+	/**
+	 * Loader of options cache.
+	 */
+	private LovIndex loadLovOptions(String key)
+	{
+		return new LovIndex(fetchLovOptionsOfKey(key));
+	}
+	
+	/**
+	 * Fetches options of specified cache key, which is either lov name or "parent-option-label/child-lov-name".
+	 */
+	private List<LovOption> fetchLovOptionsOfKey(String key)
+	{
+		int sepIdx = key.lastIndexOf('/');
+		
+		if(sepIdx < 0)
+		{
+			return fetchLovOptionsFromDb(key);
+		}
+		
+		String childLov = key.substring(sepIdx + 1);
+		StoredLovEntity lovEntity = lovCache.get(childLov);
+		
+		if(lovEntity == null || lovEntity.getParent() == null)
+		{
+			throw new InvalidStateException("No lov found with name: {} or it does not have a parent", childLov);
+		}
+		
+		return fetchChildLovOptionsFromDb(lovEntity.getParent().getName(), key.substring(0, sepIdx), childLov);
+	}
+
 	public List<LovOption> getLovOptions(String lovName)
+	{
+		return getLovIndex(lovName).getOptions();
+	}
+	
+	/**
+	 * Fetches options of specified lov along with their index.
+	 */
+	public LovIndex getLovIndex(String lovName)
 	{
 		StoredLovEntity lovEntity = lovCache.get(lovName);
 		
@@ -112,15 +226,72 @@ public class StoredLovService
 			throw new InvalidArgumentException("No lov exists with specified name: " + lovName);
 		}
 		
-		securityService.checkAuthorization(lovEntity.isAuthRequired(), lovEntity.getAuthorizedRoles());
+		checkAuthorization(lovEntity);
 
 		if(StringUtils.isNotBlank(lovEntity.getParentProviderName()))
 		{
 			String parentValue = lovService.getParentValue(lovEntity.getParentProviderName());
-			return fetchChildLovOptionsFromDb(lovEntity.getParent().getName(), parentValue, lovName);
+			return new LovIndex(fetchChildLovOptionsFromDb(lovEntity.getParent().getName(), parentValue, lovName));
 		}
 
-		return lovOptionsCache.computeIfAbsent(lovName, () -> fetchLovOptionsFromDb(lovName));
+		return lovOptionsCache.getOrLoad(lovName);
+	}
+
+	/**
+	 * Fetches options of specified lovs. Options of lovs which are not cached are loaded in single query.
+	 * @param lovNames lovs whose options are to be fetched
+	 * @return options index keyed by lov name
+	 */
+	public Map<String, LovIndex> getLovIndexes(Collection<String> lovNames)
+	{
+		Map<String, LovIndex> res = new HashMap<>();
+		Set<String> cachedLovNames = new HashSet<>();
+		
+		for(String lovName : lovNames)
+		{
+			StoredLovEntity lovEntity = lovCache.get(lovName);
+			
+			if(lovEntity == null || StringUtils.isNotBlank(lovEntity.getParentProviderName()))
+			{
+				// lovs with parent provider are not cached
+				res.put(lovName, getLovIndex(lovName));
+				continue;
+			}
+			
+			checkAuthorization(lovEntity);
+			cachedLovNames.add(lovName);
+		}
+		
+		if(!cachedLovNames.isEmpty())
+		{
+			res.putAll(lovOptionsCache.getAll(cachedLovNames, this::loadLovOptions));
+		}
+		
+		return res;
+	}
+	
+	/**
+	 * Bulk loader of options cache, which loads options of specified lovs in single query.
+	 */
+	private Map<String, LovIndex> loadLovOptions(Set<String> lovNames)
+	{
+		logger.info("Fetching lov options from database for lovs: {}", lovNames);
+		
+		SearchQuery searchQuery = new SearchQuery();
+		searchQuery.addCondition(new SearchCondition("lov.name", Operator.IN, lovNames));
+		searchQuery.setOrderByFields(List.of(new OrderByField("label", OrderByType.ASC)));
+		
+		Map<String, List<LovOption>> lovOptions = new HashMap<>();
+		lovNames.forEach(lovName -> lovOptions.put(lovName, new ArrayList<>()));
+		
+		for(StoredLovOptionResult option : lovOptionRepository.searchLovOptions(searchQuery))
+		{
+			lovOptions.get(option.getLovName()).add(new LovOption("" + option.getId(), option.getLabel()));
+		}
+		
+		Map<String, LovIndex> res = new HashMap<>();
+		lovOptions.forEach((lovName, options) -> res.put(lovName, new LovIndex(options)));
+		return res;
 	}
 
 	private List<LovOption> fetchChildLovOptionsFromDb(String parentLovName, String parentLovOptionLabel, String childLov)
@@ -132,6 +303,51 @@ public class StoredLovService
 			.collect(Collectors.toList());
 	}
 
+	/**
+	 * Fetches options of specified lov matching specified text, for type-ahead. Options whose label starts with
+	 * the text come first, followed by options having a word starting with the text.
+	 * @param parentValue parent option label, for child lovs. Ignored for lovs having parent provider.
+	 * @param limit max number of options to return, capped by configured max limit
+	 */
+	public List<LovOption> searchLovOptions(String lovName, String parentValue, String text, int limit)
+	{
+		StoredLovEntity lovEntity = lovCache.get(lovName);
+		
+		if(lovEntity == null)
+		{
+			throw new InvalidArgumentException("No lov exists with specified name: " + lovName);
+		}
+		
+		checkAuthorization(lovEntity);
+		
+		String key = lovName;
+
+		if(StringUtils.isNotBlank(lovEntity.getParentProviderName()))
+		{
+			key = lovService.getParentValue(lovEntity.getParentProviderName()) + "/" + lovName;
+		}
+		else if(StringUtils.isNotBlank(parentValue))
+		{
+			if(lovEntity.getParent() == null)
+			{
+				throw new InvalidArgumentException("Parent value is specified for lov without parent: " + lovName);
+			}
+			
+			// parent value comes from unauthenticated requests, so it is validated before it becomes a cache key
+			String parentLabel = lovOptionsCache.getOrLoad(lovEntity.getParent().getName()).getLabel(parentValue);
+			
+			if(parentLabel == null)
+			{
+				throw new InvalidArgumentException("Invalid parent value specified for lov: " + lovName);
+			}
+			
+			key = parentLabel + "/" + lovName;
+		}
+		
+		int effectiveLimit = Math.max(1, Math.min(limit, maxSearchLimit));
+		return searchIndexCache.getOrLoad(key).search((text == null) ? "" : text, effectiveLimit);
+	}
+
 	public List<LovOption> getChildLovOptions(String childLov, String parentLovOptionLabel)
 	{
 		StoredLovEntity lovEntity = lovCache.get(childLov);
@@ -141,13 +357,9 @@ public class StoredLovService
 			throw new InvalidStateException("No lov found with name: {} or it does not have a parent", childLov);
 		}
 		
-		securityService.checkAuthorization(lovEntity.isAuthRequired(), lovEntity.getAuthorizedRoles());
+		checkAuthorization(lovEntity);
 
-		String parentLovName = lovEntity.getParent().getName();
-		return lovOptionsCache.computeIfAbsent(
-			parentLovOptionLabel + "/" + childLov, 
-			() -> fetchChildLovOptionsFromDb(parentLovName, parentLovOptionLabel, childLov)
-		);
+		return lovOptionsCache.getOrLoad(parentLovOptionLabel + "/" + childLov).getOptions();
 	}
 	
 	public String checkAndSaveLovOption(LovConfig lovConfig, String lovName, String optionLabel)
@@ -169,23 +381,10 @@ public class StoredLovService
 			return Collections.emptySet();
 		}
 
-		// Resolve against all options so case variants (ELECTRONICS vs Electronics) match
-		// even when the filtered IN query does not honor ignoreCase.
-		List<StoredLovOptionEntity> allOptions = lovOptionRepository.fetchLovOptions(lovName);
-		Map<String, String> canonicalByLower = new HashMap<>();
-
-		if(allOptions != null)
-		{
-			for(StoredLovOptionEntity opt : allOptions)
-			{
-				if(opt.getLabel() != null)
-				{
-					canonicalByLower.put(opt.getLabel().toLowerCase(), opt.getLabel());
-				}
-			}
-		}
-
+		// Resolve against all options (ignoring case) so case variants (ELECTRONICS vs Electronics) match
+		LovIndex lovIndex = lovOptionsCache.getOrLoad(lovName);
 		Set<String> resolvedLabels = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+		Set<String> unresolvedLabels = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
 
 		for(String optionLabel : optionLabels)
 		{
@@ -194,27 +393,52 @@ public class StoredLovService
 				continue;
 			}
 
-			String canonical = canonicalByLower.get(optionLabel.toLowerCase());
+			String canonical = lovIndex.getLabel(optionLabel);
 
 			if(canonical != null)
 			{
 				resolvedLabels.add(canonical);
 			}
+			else
+			{
+				unresolvedLabels.add(optionLabel);
+			}
+		}
+		
+		// cached index may not have options added recently by other nodes. When missing options are to be saved,
+		// misses are rechecked against db, so that options (or case variants) added by other nodes are not inserted again.
+		// Otherwise misses are rechecked with reloaded index
+		if(!unresolvedLabels.isEmpty())
+		{
+			Function<String, String> labelResolver = lovConfig.isSaveMissingOptions() ? 
+				fetchLabelsFromDb(lovName)::get : reloadOnMiss(lovName)::getLabel;
+			
+			for(Iterator<String> it = unresolvedLabels.iterator(); it.hasNext(); )
+			{
+				String canonical = labelResolver.apply(it.next());
+				
+				if(canonical != null)
+				{
+					resolvedLabels.add(canonical);
+					it.remove();
+				}
+			}
 		}
 
 		if(!lovConfig.isSaveMissingOptions())
 		{
-			TreeSet<String> missing = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
-			missing.addAll(optionLabels);
-			missing.removeAll(resolvedLabels);
-
-			if(!missing.isEmpty())
+			if(!unresolvedLabels.isEmpty())
 			{
-				throw new InvalidStateException("Following lov options are not present [Under Lov: {}]: {}", lovName, missing);
+				throw new InvalidStateException("Following lov options are not present [Under Lov: {}]: {}", lovName, unresolvedLabels);
 			}
 
 			return resolvedLabels;
 		}
+		
+		if(unresolvedLabels.isEmpty())
+		{
+			return resolvedLabels;
+		}
 
 		StoredLovEntity lovEntity = lovRepository.fetchByName(lovName);
 
@@ -249,20 +473,10 @@ public class StoredLovService
 			parentOption = new StoredLovOptionEntity(parentOptionId);
 		}
 
-		boolean anyNewOption = false;
+		List<LovOption> newOptions = new ArrayList<>();
 
-		for(String optionLabel : optionLabels)
+		for(String optionLabel : unresolvedLabels)
 		{
-			if(StringUtils.isBlank(optionLabel))
-			{
-				continue;
-			}
-
-			if(canonicalByLower.containsKey(optionLabel.toLowerCase()))
-			{
-				continue;
-			}
-
 			StoredLovOptionEntity option = new StoredLovOptionEntity()
 				.setLov(lovEntity)
 				.setParentOptionId(parentOption != null ? parentOption.getId() : null)
@@ -278,22 +492,87 @@ public class StoredLovService
 			);
 			
 			lovOptionRepository.save(option);
-			canonicalByLower.put(optionLabel.toLowerCase(), optionLabel);
 			resolvedLabels.add(optionLabel);
-			anyNewOption = true;
+			newOptions.add(new LovOption("" + option.getId(), optionLabel));
 		}
 
-		if(anyNewOption && lovOptionsCache != null)
+		if(!newOptions.isEmpty())
 		{
-			lovOptionsCache.remove(lovName);
+			String parentOptionLabel = lovConfig.getParentOptionLabel();
+			
+			// done after commit, so that rolled back options are not cached and reloads done before commit
+			// do not retain old options
+			TransactionUtils.runAfterCommit(() -> 
+			{
+				lovOptionsCache.remove(lovName);
+				addToSearchIndex(lovName, newOptions);
+	
+				if(parentOptionLabel != null)
+				{
+					lovOptionsCache.remove(parentOptionLabel + "/" + lovName);
+					addToSearchIndex(parentOptionLabel + "/" + lovName, newOptions);
+				}
+			});
+		}
+
+		return resolvedLabels;
+	}
 
-			if(lovConfig.getParentOptionLabel() != null)
+	/**
+	 * Fetches labels of specified lov from db, ignoring case.
+	 * @return canonical labels keyed by label
+	 */
+	private Map<String, String> fetchLabelsFromDb(String lovName)
+	{
+		Map<String, String> labels = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		
+		for(StoredLovOptionEntity option : lovOptionRepository.fetchLovOptions(lovName))
+		{
+			if(option.getLabel() != null)
 			{
-				lovOptionsCache.remove(lovConfig.getParentOptionLabel() + "/" + lovName);
+				labels.put(option.getLabel(), option.getLabel());
 			}
 		}
+		
+		return labels;
+	}
 
-		return resolvedLabels;
+	/**
+	 * Adds specified options to search index of specified key, if the index is already loaded.
+	 * The index is set again, so that the cache re-weighs it with added options.
+	 */
+	private void addToSearchIndex(String key, List<LovOption> options)
+	{
+		LovOptionSearchIndex searchIndex = searchIndexCache.get(key);
+		
+		if(searchIndex != null)
+		{
+			options.forEach(searchIndex::add);
+			searchIndexCache.set(key, searchIndex);
+		}
+	}
+
+	/**
+	 * Reloads options of specified lov when values are not found in cached options. Reload happens at most
+	 * once per miss reload interval, within which currently cached options are returned.
+	 */
+	private LovIndex reloadOnMiss(String lovName)
+	{
+		boolean[] reloadAllowed = {false};
+		
+		missReloadCache.computeIfAbsent(lovName, () -> 
+		{
+			reloadAllowed[0] = true;
+			return Boolean.TRUE;
+		});
+		
+		if(reloadAllowed[0])
+		{
+			logger.debug("Reloading options of lov {} as values are missing from cached options", lovName);
+			lovOptionsCache.remove(lovName);
+		}
+		
+		return lovOptionsCache.getOrLoad(lovName);
 	}
 
 	public boolean isValidLov(String lovName)
@@ -315,20 +594,7 @@ public class StoredLovService
 			return;
 		}
 
-		List<StoredLovOptionEntity> allOptions = lovOptionRepository.fetchLovOptions(lovName);
-		Set<String> validIds = new HashSet<>();
-
-		if(allOptions != null)
-		{
-			for(StoredLovOptionEntity opt : allOptions)
-			{
-				if(opt.getId() != null)
-				{
-					validIds.add(String.valueOf(opt.getId()));
-				}
-			}
-		}
-
+		LovIndex lovIndex = lovOptionsCache.getOrLoad(lovName);
 		TreeSet<String> missing = new TreeSet<>();
 
 		for(Object optionId : optionIds)
@@ -340,11 +606,18 @@ public class StoredLovService
 
 			String idStr = String.valueOf(optionId).trim();
 
-			if(!validIds.contains(idStr))
+			if(!lovIndex.containsId(idStr))
 			{
 				missing.add(idStr);
 			}
 		}
+		
+		// cached index may not have options added recently by other nodes, recheck with reloaded index
+		if(!missing.isEmpty())
+		{
+			LovIndex reloadedIndex = reloadOnMiss(lovName);
+			missing.removeIf(reloadedIndex::containsId);
+		}
 
 		if(!missing.isEmpty())
 		{
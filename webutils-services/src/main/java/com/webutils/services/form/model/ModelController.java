@@ -24,16 +24,16 @@
 package com.webutils.services.form.model;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.webutils.common.auth.Authorization;
 import com.webutils.common.auth.NoAuthentication;
-import com.webutils.common.form.model.ModelDef;
-import com.webutils.common.response.BasicReadResponse;
-import com.webutils.services.common.InvalidRequestException;
 
 /**
  * Controller for fetching LOV values.
@@ -53,15 +53,9 @@ public class ModelController
 	 */
 	@NoAuthentication
 	@RequestMapping(value = "/fetch/{name}", method = RequestMethod.GET)
-	public BasicReadResponse<ModelDef> fetchModel(@PathVariable("name") String modelName)
+	public ResponseEntity<byte[]> fetchModel(@PathVariable("name") String modelName, 
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch)
 	{
-		ModelDef modelDef = modelService.getModelDef(modelName);
-		
-		if(modelDef == null)
-		{
-			throw new InvalidRequestException("Invalid model name specified - " + modelName);
-		}
-		
-		return new BasicReadResponse<>(modelDef);
+		return modelService.getModelDefResponse(modelName).toResponseEntity(ifNoneMatch);
 	}
 }
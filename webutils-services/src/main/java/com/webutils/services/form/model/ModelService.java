@@ -27,6 +27,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -39,9 +40,11 @@ import com.webutils.common.form.annotations.Model;
 import com.webutils.common.form.model.FieldDef;
 import com.webutils.common.form.model.LovType;
 import com.webutils.common.form.model.ModelDef;
+import com.webutils.common.response.BasicReadResponse;
 import com.webutils.services.common.ClassScannerService;
 import com.webutils.services.common.InvalidRequestException;
 import com.webutils.services.common.SecurityService;
+import com.webutils.services.common.SerializedResponse;
 import com.webutils.services.form.lov.LovRef;
 import com.webutils.services.form.lov.LovService;
 import com.webutils.services.form.lov.stored.StoredLovService;
@@ -90,6 +93,11 @@ public class ModelService
 	
 	private Map<String, FieldDef> idToField = new HashMap<String, FieldDef>();
 	
+	/**
+	 * Model definitions serialized as read responses, computed on first fetch.
+	 */
+	private Map<String, SerializedResponse> nameToResponse = new ConcurrentHashMap<>();
+	
 	/**
 	 * scans for models and loads their definitions into map.
 	 * Post init app is used, to ensure all repositories are loaded before this method.
@@ -162,6 +170,18 @@ public class ModelService
 		return res;
 	}
 	
+	/**
+	 * Fetches model definition of specified name, serialized as read response. As model definitions
+	 * do not change, serialization is done only once per model.
+	 * @param name of the model whose definition needs to be fetched
+	 * @return serialized read response of model definition
+	 */
+	public SerializedResponse getModelDefResponse(String name)
+	{
+		ModelDef modelDef = getModelDef(name);
+		return nameToResponse.computeIfAbsent(name, key -> SerializedResponse.of(new BasicReadResponse<>(modelDef)));
+	}
+	
 	/**
 	 * Fetches model definition based on the type.
 	 * @param type Type of model
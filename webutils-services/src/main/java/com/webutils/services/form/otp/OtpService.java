@@ -343,7 +343,7 @@ public class OtpService
 		}
 
 		// once token is validated, delete the otp token
-		tokenManager.deleteToken(tokenEntity.getId());
+		tokenManager.deleteToken(tokenEntity.getToken());
 	}
 
 	private void cleanUpOtpDetails()
@@ -0,0 +1,32 @@
+package com.webutils.services.form.token;
+
+/**
+ * Token store backed by FORM_TOKEN table.
+ */
+class DbTokenStore implements ITokenStore
+{
+	private final ITokenRepository tokenRepository;
+	
+	DbTokenStore(ITokenRepository tokenRepository)
+	{
+		this.tokenRepository = tokenRepository;
+	}
+
+	@Override
+	public void save(TokenEntity entity)
+	{
+		tokenRepository.save(entity);
+	}
+
+	@Override
+	public TokenEntity fetch(String token)
+	{
+		return tokenRepository.fetchByToken(token);
+	}
+
+	@Override
+	public void delete(String token)
+	{
+		tokenRepository.deleteByToken(token);
+	}
+}
@@ -1,16 +1,30 @@
 package com.webutils.services.form.token;
 
 import java.util.Date;
+import java.util.List;
 
 import com.webutils.common.Optional;
+import com.webutils.services.common.IdQueryResult;
 import com.yukthitech.persistence.ICrudRepository;
 import com.yukthitech.persistence.repository.annotations.Condition;
 import com.yukthitech.persistence.repository.annotations.Operator;
+import com.yukthitech.persistence.repository.search.SearchQuery;
 
 @Optional
 public interface ITokenRepository extends ICrudRepository<TokenEntity>
 {
 	TokenEntity fetchByToken(@Condition("token") String token);
 
+	boolean deleteByToken(@Condition("token") String token);
+
 	int deleteExpiredTokens(@Condition(value = "expiresAt", op = Operator.LT) Date curTime);
+
+	/**
+	 * Used by sweeper to fetch ids of expired tokens chunk by chunk.
+	 */
+	List<IdQueryResult> fetchExpiredTokenIds(SearchQuery query);
+
+	int deleteExpiredTokensUpTo(
+			@Condition(value = "expiresAt", op = Operator.LT) Date curTime,
+			@Condition(value = "id", op = Operator.LE) Long maxId);
 }
@@ -0,0 +1,18 @@
+package com.webutils.services.form.token;
+
+/**
+ * Storage of short-lived form tokens (captcha, otp) used by {@link TokenManager}. Applications
+ * can define a bean of this type to use a custom store.
+ */
+public interface ITokenStore
+{
+	public void save(TokenEntity entity);
+	
+	/**
+	 * Fetches the token entity. Expired entities may be returned till they are evicted, so that
+	 * expiry can be reported to the user.
+	 */
+	public TokenEntity fetch(String token);
+	
+	public void delete(String token);
+}
@@ -0,0 +1,112 @@
+package com.webutils.services.form.token;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Node local token store. Tokens are spread across shards, each guarded by its own lock, so that
+ * concurrent captcha/otp requests rarely contend. Expired tokens are retained for a grace period
+ * (so that expiry can be reported) and are then removed by {@link #purgeExpired()}. When a shard
+ * is full, its oldest token is evicted.
+ */
+class InMemoryTokenStore implements ITokenStore
+{
+	private static class Shard extends LinkedHashMap<String, TokenEntity>
+	{
+		private static final long serialVersionUID = 1L;
+		
+		private final int capacity;
+		
+		private Shard(int capacity)
+		{
+			this.capacity = capacity;
+		}
+		
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, TokenEntity> eldest)
+		{
+			return size() > capacity;
+		}
+	}
+	
+	private final Shard shards[];
+	
+	private final long expiredGraceMillis;
+	
+	InMemoryTokenStore(int shardCount, int maxSize, long expiredGraceMillis)
+	{
+		this.shards = new Shard[shardCount];
+		this.expiredGraceMillis = expiredGraceMillis;
+		
+		int shardCapacity = Math.max(1, maxSize / shardCount);
+		
+		for(int i = 0; i < shardCount; i++)
+		{
+			shards[i] = new Shard(shardCapacity);
+		}
+	}
+	
+	private Shard getShard(String token)
+	{
+		return shards[Math.floorMod(token.hashCode(), shards.length)];
+	}
+
+	@Override
+	public void save(TokenEntity entity)
+	{
+		Shard shard = getShard(entity.getToken());
+		
+		synchronized(shard)
+		{
+			shard.put(entity.getToken(), entity);
+		}
+	}
+
+	@Override
+	public TokenEntity fetch(String token)
+	{
+		Shard shard = getShard(token);
+		
+		synchronized(shard)
+		{
+			return shard.get(token);
+		}
+	}
+
+	@Override
+	public void delete(String token)
+	{
+		Shard shard = getShard(token);
+		
+		synchronized(shard)
+		{
+			shard.remove(token);
+		}
+	}
+	
+	/**
+	 * Removes tokens which expired before the grace period. Shards are purged one
+	 * by one, so that other shards are not blocked meanwhile.
+	 */
+	void purgeExpired()
+	{
+		long minExpiry = System.currentTimeMillis() - expiredGraceMillis;
+		
+		for(Shard shard : shards)
+		{
+			synchronized(shard)
+			{
+				Iterator<TokenEntity> it = shard.values().iterator();
+				
+				while(it.hasNext())
+				{
+					if(it.next().getExpiresAt().getTime() < minExpiry)
+					{
+						it.remove();
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package com.webutils.services.form.token;
+
+import com.webutils.cache.ISharedCacheStore;
+
+/**
+ * Token store backed by cluster wide {@link ISharedCacheStore}, so that a token issued by one
+ * node can be validated by other nodes. Tokens are kept in store for a grace period after expiry,
+ * so that expiry can be reported.
+ */
+class SharedTokenStore implements ITokenStore
+{
+	private static final String CACHE_NAME = "TokenManager.tokens";
+	
+	private final ISharedCacheStore sharedStore;
+	
+	private final long expiredGraceMillis;
+	
+	SharedTokenStore(ISharedCacheStore sharedStore, long expiredGraceMillis)
+	{
+		this.sharedStore = sharedStore;
+		this.expiredGraceMillis = expiredGraceMillis;
+	}
+
+	@Override
+	public void save(TokenEntity entity)
+	{
+		long ttlMillis = entity.getExpiresAt().getTime() - System.currentTimeMillis() + expiredGraceMillis;
+		sharedStore.put(CACHE_NAME, entity.getToken(), entity, ttlMillis);
+	}
+
+	@Override
+	public TokenEntity fetch(String token)
+	{
+		return (TokenEntity) sharedStore.get(CACHE_NAME, token);
+	}
+
+	@Override
+	public void delete(String token)
+	{
+		sharedStore.remove(CACHE_NAME, token);
+	}
+}
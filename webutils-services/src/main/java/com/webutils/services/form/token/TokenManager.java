@@ -8,12 +8,15 @@ import java.util.concurrent.TimeUnit;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.webutils.cache.ISharedCacheStore;
 import com.webutils.common.repo.IMissingTableRepository;
 import com.webutils.services.common.ExecutionService;
+import com.webutils.services.common.ExpiredRecordSweeper;
 import com.webutils.services.common.InvalidRequestException;
 import com.yukthitech.utils.exceptions.InvalidArgumentException;
 import com.yukthitech.utils.exceptions.InvalidStateException;
@@ -25,30 +28,105 @@ public class TokenManager
 {
 	private static final Logger logger = LogManager.getLogger(TokenManager.class);
 
+	public static final String STORE_DB = "db";
+	
+	public static final String STORE_MEMORY = "memory";
+	
+	public static final String STORE_SHARED = "shared";
+
 	@Autowired
 	private ITokenRepository tokenRepository;
 
+	@Autowired
+	private ExpiredRecordSweeper expiredRecordSweeper;
+	
 	@Autowired
 	private ExecutionService executionService;
+	
+	@Autowired
+	private ObjectProvider<ITokenStore> customStoreProvider;
+	
+	@Autowired
+	private ObjectProvider<ISharedCacheStore> sharedStoreProvider;
 
 	@Value("${webutils.form.token.cleanup.interval.seconds:1800}")
 	private long cleanupIntervalSec;
+	
+	/**
+	 * Token store to use - db, memory (node local) or shared (cluster wide {@link ISharedCacheStore}).
+	 */
+	@Value("${webutils.form.token.store:db}")
+	private String storeType;
+	
+	@Value("${webutils.form.token.store.shards:16}")
+	private int storeShards;
+	
+	@Value("${webutils.form.token.store.maxSize:100000}")
+	private int storeMaxSize;
+	
+	/**
+	 * Time for which expired tokens are retained by memory and shared stores, so that
+	 * expiry can be reported instead of not-found.
+	 */
+	@Value("${webutils.form.token.store.expiredGraceSec:300}")
+	private long expiredGraceSec;
 
 	private boolean disabled = false;
+	
+	private ITokenStore tokenStore;
 
 	@PostConstruct
 	private void init()
 	{
-		disabled = (tokenRepository instanceof IMissingTableRepository);
-
-		if(disabled)
+		tokenStore = customStoreProvider.getIfAvailable();
+		
+		if(tokenStore != null)
 		{
-			logger.info("TokenManager is disabled as required table is not defined");
+			logger.info("Using custom token store: {}", tokenStore.getClass().getName());
 			return;
 		}
-
-		executionService.scheduleRepeatedTask("TokenManager.cleanupTokens",
-				this::cleanupTokens, cleanupIntervalSec, TimeUnit.SECONDS);
+		
+		long expiredGraceMillis = expiredGraceSec * 1000;
+		
+		switch(storeType)
+		{
+			case STORE_MEMORY ->
+			{
+				InMemoryTokenStore inMemoryStore = new InMemoryTokenStore(storeShards, storeMaxSize, expiredGraceMillis);
+				executionService.scheduleRepeatedTask("TokenManager.purgeExpired", 
+						inMemoryStore::purgeExpired, cleanupIntervalSec, TimeUnit.SECONDS);
+				
+				tokenStore = inMemoryStore;
+			}
+			case STORE_SHARED ->
+			{
+				ISharedCacheStore sharedStore = sharedStoreProvider.getIfAvailable();
+				
+				if(sharedStore == null)
+				{
+					throw new InvalidStateException("Shared token store is configured, but no ISharedCacheStore bean is defined");
+				}
+				
+				tokenStore = new SharedTokenStore(sharedStore, expiredGraceMillis);
+			}
+			case STORE_DB ->
+			{
+				disabled = (tokenRepository instanceof IMissingTableRepository);
+
+				if(disabled)
+				{
+					logger.info("TokenManager is disabled as required table is not defined");
+					return;
+				}
+				
+				tokenStore = new DbTokenStore(tokenRepository);
+				expiredRecordSweeper.register("formTokens", tokenRepository, "expiresAt",
+						tokenRepository::fetchExpiredTokenIds, tokenRepository::deleteExpiredTokensUpTo, cleanupIntervalSec);
+			}
+			default -> throw new InvalidStateException("Invalid token store type specified: {}", storeType);
+		}
+		
+		logger.info("Using {} token store", storeType);
 	}
 
 	public boolean isDisabled()
@@ -86,7 +164,7 @@ public class TokenManager
 		entity.setUserId(userId);
 		entity.setExpiresAt(expiresAt);
 		entity.setCreatedOn(now);
-		tokenRepository.save(entity);
+		tokenStore.save(entity);
 
 		return token;
 	}
@@ -117,7 +195,7 @@ public class TokenManager
 			return TokenLookupResult.notFound();
 		}
 
-		TokenEntity entity = tokenRepository.fetchByToken(token);
+		TokenEntity entity = tokenStore.fetch(token);
 
 		if(entity == null)
 		{
@@ -170,8 +248,29 @@ public class TokenManager
 		return entity;
 	}
 
-	public void deleteToken(long tokenId)
+	public void deleteToken(String token)
+	{
+		tokenStore.delete(token);
+	}
+
+	/**
+	 * Deletes token with specified id from db table. Supported only with db store.
+	 * @deprecated token ids are assigned only by db store, use {@link #deleteToken(String)} which works with all stores.
+	 */
+	@Deprecated
+	public void deleteToken(Long tokenId)
 	{
+		if(!(tokenStore instanceof DbTokenStore))
+		{
+			throw new InvalidStateException("Deletion by token id is supported only by db token store. Current store: {}", 
+					tokenStore == null ? "none" : tokenStore.getClass().getName());
+		}
+		
+		if(tokenId == null)
+		{
+			throw new InvalidArgumentException("Token id is required for token deletion");
+		}
+		
 		tokenRepository.deleteById(tokenId);
 	}
 
@@ -180,15 +279,4 @@ public class TokenManager
 		TokenLookupResult lookup = lookupToken(token);
 		return lookup.isValid() ? lookup.getEntity() : null;
 	}
-
-	private void cleanupTokens()
-	{
-		logger.debug("Cleaning up expired form tokens");
-		int deletedCount = tokenRepository.deleteExpiredTokens(new Date());
-
-		if(deletedCount > 0)
-		{
-			logger.info("Deleted {} expired form tokens", deletedCount);
-		}
-	}
 }
@@ -0,0 +1,101 @@
+package com.webutils.services.search;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes search export rows as RFC-4180 style CSV. Every flush pushes the rows written so far
+ * to the client.
+ */
+public class CsvSearchExportWriter implements ISearchExportWriter
+{
+	/** Byte order mark, so that spreadsheet tools detect utf-8 content. */
+	private static final char UTF8_BOM = '\uFEFF';
+
+	private final Writer writer;
+
+	private boolean aborted = false;
+
+	public CsvSearchExportWriter(OutputStream outputStream) throws IOException
+	{
+		this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+		this.writer.write(UTF8_BOM);
+	}
+
+	@Override
+	public void writeHeadings(List<String> headings) throws IOException
+	{
+		writeRow(headings);
+	}
+
+	@Override
+	public void writeRow(List<String> values) throws IOException
+	{
+		int size = values.size();
+		for(int i = 0; i < size; i++)
+		{
+			if(i > 0)
+			{
+				writer.write(',');
+			}
+			writeValue(values.get(i));
+		}
+		writer.write("\r\n");
+	}
+
+	private void writeValue(String value) throws IOException
+	{
+		if(value == null || value.isEmpty())
+		{
+			return;
+		}
+
+		boolean quote = false;
+		for(int i = 0; i < value.length(); i++)
+		{
+			char ch = value.charAt(i);
+			if(ch == ',' || ch == '"' || ch == '\n' || ch == '\r')
+			{
+				quote = true;
+				break;
+			}
+		}
+
+		if(!quote)
+		{
+			writer.write(value);
+			return;
+		}
+
+		writer.write('"');
+		writer.write(value.replace("\"", "\"\""));
+		writer.write('"');
+	}
+
+	@Override
+	public void flush() throws IOException
+	{
+		writer.flush();
+	}
+
+	@Override
+	public void abort()
+	{
+		aborted = true;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		// rows flushed already cannot be recalled, only buffered rows are discarded on abort
+		if(!aborted)
+		{
+			writer.flush();
+		}
+	}
+}
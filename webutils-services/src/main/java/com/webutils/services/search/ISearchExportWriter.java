@@ -0,0 +1,37 @@
+package com.webutils.services.search;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes exported search rows to an output stream in a specific file format. Rows are
+ * written one at a time, so that implementations need not hold the full result set in memory.
+ * Closing the writer completes the output (but does not close the underlying stream), unless
+ * the writer is aborted.
+ */
+public interface ISearchExportWriter extends Closeable
+{
+	/**
+	 * Writes the heading row. Expected to be called once before any data row.
+	 * @param headings column headings
+	 */
+	public void writeHeadings(List<String> headings) throws IOException;
+
+	/**
+	 * Writes a single data row. Specified list may be reused by caller after this call.
+	 * @param values formatted column values, null values are written as empty cells
+	 */
+	public void writeRow(List<String> values) throws IOException;
+
+	/**
+	 * Flushes rows written so far, if the format supports incremental output.
+	 */
+	public void flush() throws IOException;
+	
+	/**
+	 * Marks the export as failed. Output not yet sent to the stream is discarded on close, instead
+	 * of being completed.
+	 */
+	public void abort();
+}
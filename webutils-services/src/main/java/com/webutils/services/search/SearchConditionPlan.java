@@ -0,0 +1,210 @@
+package com.webutils.services.search;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import com.webutils.common.form.annotations.ContextAttribute;
+import com.webutils.services.common.FreeMarkerService;
+import com.yukthitech.persistence.repository.annotations.Condition;
+import com.yukthitech.persistence.repository.annotations.Conditions;
+import com.yukthitech.persistence.repository.annotations.JoinOperator;
+import com.yukthitech.persistence.repository.annotations.Operator;
+import com.yukthitech.persistence.repository.search.SearchCondition;
+import com.yukthitech.persistence.repository.search.SearchQuery;
+import com.yukthitech.utils.exceptions.InvalidStateException;
+
+/**
+ * Immutable plan, compiled once per search query model, which converts a query bean
+ * into repository search conditions. Annotation lookup, accessibility checks and LIKE
+ * detection are done during compilation, so that applying the plan involves only
+ * field reads and condition creation.
+ */
+final class SearchConditionPlan
+{
+	/**
+	 * Condition details of a single {@link Condition} annotation.
+	 */
+	private record ConditionTemplate(String property, Operator operator, boolean ignoreCase, JoinOperator joinWith)
+	{
+		private SearchCondition newCondition(Object value)
+		{
+			SearchCondition condition = new SearchCondition(property, operator, value);
+			condition.setIgnoreCase(ignoreCase);
+			return condition;
+		}
+	}
+
+	/**
+	 * Compiled details of a single condition field of query model.
+	 * @param getter getter handle with type (Object)Object, null for context attributes
+	 * @param contextExpression context attribute expression, null for plain fields
+	 * @param templateName template name used for context attribute evaluation
+	 * @param conditions conditions to be added, first one acts as the group root
+	 * @param likeOperator true if all conditions use LIKE operator
+	 */
+	private record ConditionField(String name, MethodHandle getter, String contextExpression, String templateName,
+			List<ConditionTemplate> conditions, boolean likeOperator)
+	{}
+
+	private final List<ConditionField> fields;
+
+	private final boolean contextAttributesUsed;
+
+	private SearchConditionPlan(List<ConditionField> fields)
+	{
+		this.fields = List.copyOf(fields);
+		this.contextAttributesUsed = fields.stream().anyMatch(field -> field.contextExpression() != null);
+	}
+
+	/**
+	 * Compiles condition plan for specified query model type.
+	 */
+	static SearchConditionPlan compile(Class<?> queryType)
+	{
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		MethodType getterType = MethodType.methodType(Object.class, Object.class);
+		List<ConditionField> fields = new ArrayList<>();
+
+		for(Field field : queryType.getDeclaredFields())
+		{
+			Condition condition = field.getAnnotation(Condition.class);
+			Conditions conditions = field.getAnnotation(Conditions.class);
+			if(condition == null && conditions == null)
+			{
+				continue;
+			}
+
+			List<ConditionTemplate> templates = new ArrayList<>();
+			Condition[] conditionArr = (condition != null) ? new Condition[] {condition} : conditions.value();
+			boolean likeOperator = conditionArr.length > 0;
+
+			for(Condition cond : conditionArr)
+			{
+				templates.add(new ConditionTemplate(cond.value(), cond.op(), cond.ignoreCase(), cond.joinWith()));
+				likeOperator = likeOperator && cond.op() == Operator.LIKE;
+			}
+
+			if(templates.isEmpty())
+			{
+				continue;
+			}
+
+			ContextAttribute contextAttribute = field.getAnnotation(ContextAttribute.class);
+			if(contextAttribute != null)
+			{
+				fields.add(new ConditionField(field.getName(), null, contextAttribute.value(),
+						"search-context-attribute-" + field.getName(), List.copyOf(templates), likeOperator));
+				continue;
+			}
+
+			MethodHandle getter;
+			try
+			{
+				field.setAccessible(true);
+				getter = lookup.unreflectGetter(field).asType(getterType);
+			}
+			catch(Exception ex)
+			{
+				throw new InvalidStateException("Failed to create accessor for search field {}.{}",
+						queryType.getName(), field.getName(), ex);
+			}
+
+			fields.add(new ConditionField(field.getName(), getter, null, null, List.copyOf(templates), likeOperator));
+		}
+
+		return new SearchConditionPlan(fields);
+	}
+
+	/**
+	 * Returns true if any field of the plan is a context attribute, in which case
+	 * an expression context is required while applying the plan.
+	 */
+	boolean isContextAttributesUsed()
+	{
+		return contextAttributesUsed;
+	}
+
+	/**
+	 * Adds conditions for non-empty field values of specified query to specified repository query.
+	 * @param conditionKey if not null, field names and normalized values are added to it, so that it
+	 * identifies the resultant conditions
+	 */
+	void apply(Object query, Map<String, Object> expressionContext, FreeMarkerService freeMarkerService, SearchQuery repoSearchQuery,
+			List<Object> conditionKey)
+	{
+		for(ConditionField field : fields)
+		{
+			Object value = readValue(field, query, expressionContext, freeMarkerService);
+			if(value == null)
+			{
+				continue;
+			}
+
+			if(value instanceof String strValue)
+			{
+				if(strValue.trim().isEmpty())
+				{
+					continue;
+				}
+				strValue = strValue.replace('*', '%');
+				if(field.likeOperator() && strValue.indexOf('%') < 0)
+				{
+					strValue = "%" + strValue + "%";
+				}
+				value = strValue;
+			}
+			else if(value instanceof Enum<?> enumValue)
+			{
+				value = enumValue.toString();
+			}
+
+			List<ConditionTemplate> templates = field.conditions();
+			SearchCondition searchCondition = templates.get(0).newCondition(value);
+			for(int i = 1; i < templates.size(); i++)
+			{
+				ConditionTemplate template = templates.get(i);
+				SearchCondition subcond = template.newCondition(value);
+				subcond.setJoinOperator(template.joinWith());
+				searchCondition.addCondition(subcond);
+			}
+
+			repoSearchQuery.addCondition(searchCondition);
+
+			if(conditionKey != null)
+			{
+				conditionKey.add(field.name());
+				conditionKey.add((value instanceof Date dateValue) ? dateValue.getTime() : value);
+			}
+		}
+	}
+
+	private Object readValue(ConditionField field, Object query, Map<String, Object> expressionContext, FreeMarkerService freeMarkerService)
+	{
+		if(field.getter() != null)
+		{
+			try
+			{
+				return (Object) field.getter().invokeExact(query);
+			}
+			catch(Throwable ex)
+			{
+				throw new InvalidStateException("An error occurred while fetching field value - {}", field.name(), ex);
+			}
+		}
+
+		try
+		{
+			return freeMarkerService.fetchValue(field.templateName(), field.contextExpression(), expressionContext);
+		}
+		catch(Exception ex)
+		{
+			throw new InvalidStateException("An error occurred while fetching context attribute - {}", field.contextExpression(), ex);
+		}
+	}
+}
@@ -3,26 +3,28 @@ package com.webutils.services.search;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.webutils.common.auth.NoAuthentication;
 import com.webutils.common.form.model.ModelDef;
-import com.webutils.common.response.BasicReadResponse;
 import com.webutils.common.search.ExecuteSearchResponse;
 import com.webutils.common.search.SearchExecutionModel;
 import com.webutils.services.common.AttachmentDownloadHelper;
 import com.webutils.services.common.InvalidRequestException;
 import com.webutils.services.common.ModelValidationService;
-import com.yukthitech.excel.exporter.ExcelExporter;
 
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
-import java.io.File;
+import java.io.OutputStream;
 
 @RestController
 @RequestMapping("/api/search")
@@ -40,22 +42,23 @@ public class SearchController
 	private HttpServletResponse response;
 
 	private final ObjectMapper objectMapper = new ObjectMapper();
-	private final ExcelExporter excelExporter = new ExcelExporter();
 
 	@NoAuthentication
 	@GetMapping("/{name}/query/def")
-	public BasicReadResponse<ModelDef> fetchSearchQueryDef(@PathVariable("name") String queryName)
+	public ResponseEntity<byte[]> fetchSearchQueryDef(@PathVariable("name") String queryName,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch)
 	{
 		logger.trace("fetchSearchQueryDef is called for query - {}", queryName);
-		return new BasicReadResponse<>(searchService.getSearhQueryDefinition(queryName));
+		return searchService.getSearchQueryDefinitionResponse(queryName).toResponseEntity(ifNoneMatch);
 	}
 
 	@NoAuthentication
 	@GetMapping("/{name}/result/def")
-	public BasicReadResponse<ModelDef> fetchSearchResultDef(@PathVariable("name") String queryName)
+	public ResponseEntity<byte[]> fetchSearchResultDef(@PathVariable("name") String queryName,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch)
 	{
 		logger.trace("fetchSearchResultDef is called for query - {}", queryName);
-		return new BasicReadResponse<>(searchService.getSearhResultDefinition(queryName));
+		return searchService.getSearchResultDefinitionResponse(queryName).toResponseEntity(ifNoneMatch);
 	}
 
 	@NoAuthentication
@@ -70,21 +73,44 @@ public class SearchController
 
 	@NoAuthentication
 	@GetMapping("/export/{name}")
-	public void exportSearch(@PathVariable("name") String queryName, @Valid SearchExecutionModel searchExecutionModel) throws Exception
+	public void exportSearch(@PathVariable("name") String queryName, @Valid SearchExecutionModel searchExecutionModel,
+			@RequestParam(name = "format", required = false) String format) throws Exception
 	{
 		logger.trace("exportSearch is called for query - {}", queryName);
 		Object query = parseQuery(queryName, searchExecutionModel);
 		modelValidationService.validate(query);
 
+		SearchExportFormat exportFormat = SearchExportFormat.parse(format);
 		ModelDef searchResultDef = searchService.getSearhResultDefinition(queryName);
-		ExecuteSearchResponse results = searchService.executeSearch(queryName, query, new SearchExecutionModel(1, false, true));
+		String fileName = searchResultDef.getLabel() + "." + exportFormat.getExtension();
 
-		SearchExcelDataReport searchExcelDataReport = new SearchExcelDataReport("Results", results);
-		File tempFile = File.createTempFile(queryName, ".xls");
-		excelExporter.generateExcelSheet(tempFile.getPath(), searchExcelDataReport);
+		OutputStream outputStream = AttachmentDownloadHelper.openAttachmentStream(response, fileName, exportFormat.getMimeType());
 
-		AttachmentDownloadHelper.sendFile(response, searchResultDef.getLabel() + ".xls", tempFile,
-				AttachmentDownloadHelper.MIME_MS_EXCEL_FILE, true);
+		try(ISearchExportWriter writer = exportFormat.newWriter(outputStream, "Results"))
+		{
+			try
+			{
+				searchService.exportSearch(queryName, query, writer);
+			}
+			catch(Exception ex)
+			{
+				writer.abort();
+				throw ex;
+			}
+		}
+		catch(Exception ex)
+		{
+			// when nothing is sent to client yet (always for xlsx), attachment headers are cleared and
+			// stream is left open, so that the error response gets sent instead of a truncated file
+			if(!response.isCommitted())
+			{
+				response.reset();
+			}
+
+			throw ex;
+		}
+
+		outputStream.close();
 	}
 
 	private Object parseQuery(String queryName, SearchExecutionModel searchExecutionModel) throws Exception
@@ -0,0 +1,66 @@
+package com.webutils.services.search;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.webutils.services.common.AttachmentDownloadHelper;
+import com.webutils.services.common.InvalidRequestException;
+
+/**
+ * File formats supported by search export.
+ */
+public enum SearchExportFormat
+{
+	XLSX("xlsx", AttachmentDownloadHelper.MIME_XLSX_FILE),
+
+	CSV("csv", AttachmentDownloadHelper.MIME_CSV_FILE);
+
+	private final String extension;
+	private final String mimeType;
+
+	private SearchExportFormat(String extension, String mimeType)
+	{
+		this.extension = extension;
+		this.mimeType = mimeType;
+	}
+
+	public String getExtension()
+	{
+		return extension;
+	}
+
+	public String getMimeType()
+	{
+		return mimeType;
+	}
+
+	public ISearchExportWriter newWriter(OutputStream outputStream, String sheetName) throws IOException
+	{
+		return switch(this)
+		{
+			case XLSX -> new XlsxSearchExportWriter(outputStream, sheetName);
+			case CSV -> new CsvSearchExportWriter(outputStream);
+		};
+	}
+
+	/**
+	 * Parses specified format name (case insensitive). Blank value defaults to {@link #XLSX}.
+	 */
+	public static SearchExportFormat parse(String format)
+	{
+		if(format == null || format.isBlank())
+		{
+			return XLSX;
+		}
+
+		for(SearchExportFormat value : values())
+		{
+			if(value.name().equalsIgnoreCase(format.trim()))
+			{
+				return value;
+			}
+		}
+
+		throw new InvalidRequestException("Invalid export format specified - {}", format);
+	}
+}
@@ -0,0 +1,309 @@
+package com.webutils.services.search;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.Column;
+import javax.persistence.Id;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.webutils.services.common.InvalidRequestException;
+import com.yukthitech.persistence.repository.annotations.Field;
+import com.yukthitech.persistence.repository.annotations.JoinOperator;
+import com.yukthitech.persistence.repository.annotations.Operator;
+import com.yukthitech.persistence.repository.annotations.OrderByType;
+import com.yukthitech.persistence.repository.search.SearchCondition;
+import com.yukthitech.utils.exceptions.InvalidStateException;
+
+/**
+ * Keyset (seek) pagination details of a search query, compiled from its order-by fields.
+ * Keyset paging is supported only when the order-by fields contain the unique "id" field,
+ * all order-by fields are available on the result model and are non-nullable. Seek conditions
+ * never match null values (and databases differ in where they sort nulls), so nullable order-by
+ * fields would make rows silently skipped. Fields ordered after "id" do not affect the ordering
+ * and are ignored.
+ *
+ * Cursor is an opaque url-safe token carrying the order-by values of last row of a page,
+ * prefixed with a fingerprint of the query, so that tokens of other queries are rejected.
+ */
+final class SearchKeyset
+{
+	private static final String ID_FIELD = "id";
+
+	private static final MethodType ACCESSOR_TYPE = MethodType.methodType(Object.class, Object.class);
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	/**
+	 * Order-by field of keyset.
+	 * @param name entity field name
+	 * @param orderByType order of the field
+	 * @param accessor getter of field value from result bean
+	 * @param valueType type to which cursor values are converted
+	 */
+	private record KeyField(String name, OrderByType orderByType, MethodHandle accessor, Class<?> valueType)
+	{}
+
+	private final List<KeyField> fields;
+
+	private final String fingerprint;
+
+	private SearchKeyset(String searchQueryName, List<KeyField> fields)
+	{
+		this.fields = List.copyOf(fields);
+
+		StringBuilder builder = new StringBuilder(searchQueryName);
+		fields.forEach(field -> builder.append('|').append(field.name()).append(':').append(field.orderByType()));
+		this.fingerprint = Integer.toHexString(builder.toString().hashCode());
+	}
+
+	/**
+	 * Compiles keyset for specified order-by fields (entity field name to order type, in order).
+	 * @return keyset or null if keyset paging is not supported for specified ordering
+	 */
+	static SearchKeyset compile(String searchQueryName, Map<String, OrderByType> orderBy, Class<?> resultType, Class<?> entityType)
+	{
+		if(!orderBy.containsKey(ID_FIELD))
+		{
+			return null;
+		}
+
+		List<KeyField> fields = new ArrayList<>();
+		for(Map.Entry<String, OrderByType> entry : orderBy.entrySet())
+		{
+			java.lang.reflect.Field resultField = findResultField(resultType, entry.getKey());
+			if(resultField == null)
+			{
+				return null;
+			}
+
+			// nullability is decided by the entity column, as primitive result fields map null to default values
+			if(!isNonNullable(entityType, entry.getKey()))
+			{
+				return null;
+			}
+
+			MethodHandle accessor;
+			try
+			{
+				resultField.setAccessible(true);
+				accessor = MethodHandles.lookup().unreflectGetter(resultField).asType(ACCESSOR_TYPE);
+			}
+			catch(Exception ex)
+			{
+				throw new InvalidStateException("Failed to create accessor for result field {}.{}",
+						resultType.getName(), resultField.getName(), ex);
+			}
+
+			Class<?> valueType = resultField.getType().isEnum() ? String.class : resultField.getType();
+			fields.add(new KeyField(entry.getKey(), entry.getValue(), accessor, valueType));
+
+			if(ID_FIELD.equals(entry.getKey()))
+			{
+				break;
+			}
+		}
+
+		return new SearchKeyset(searchQueryName, fields);
+	}
+
+	/**
+	 * Checks if specified entity field can never be null, that is, it is an id field or a column
+	 * declared with nullable false. Java type of the field is not considered, as columns of primitive
+	 * fields are not necessarily non-nullable. Nested fields (of joined entities) are treated as nullable.
+	 */
+	private static boolean isNonNullable(Class<?> entityType, String entityField)
+	{
+		if(entityField.indexOf('.') >= 0)
+		{
+			return false;
+		}
+
+		for(Class<?> type = entityType; type != null && type != Object.class; type = type.getSuperclass())
+		{
+			for(java.lang.reflect.Field field : type.getDeclaredFields())
+			{
+				if(!field.getName().equals(entityField))
+				{
+					continue;
+				}
+
+				if(field.getAnnotation(Id.class) != null)
+				{
+					return true;
+				}
+
+				Column column = field.getAnnotation(Column.class);
+				return (column != null && !column.nullable());
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Finds result model field mapped to specified entity field, either by {@link Field}
+	 * annotation or by name.
+	 */
+	private static java.lang.reflect.Field findResultField(Class<?> resultType, String entityField)
+	{
+		java.lang.reflect.Field byName = null;
+
+		for(Class<?> type = resultType; type != null && type != Object.class; type = type.getSuperclass())
+		{
+			for(java.lang.reflect.Field field : type.getDeclaredFields())
+			{
+				Field fieldAnnot = field.getAnnotation(Field.class);
+				if(fieldAnnot != null && entityField.equals(fieldAnnot.value()))
+				{
+					return field;
+				}
+
+				if(byName == null && fieldAnnot == null && entityField.equals(field.getName()))
+				{
+					byName = field;
+				}
+			}
+		}
+
+		return byName;
+	}
+
+	/**
+	 * Returns true if specified entity field is part of this keyset. Such fields should
+	 * not be excluded from search results.
+	 */
+	boolean isKeyField(String fieldName)
+	{
+		for(KeyField field : fields)
+		{
+			if(field.name().equals(fieldName))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Builds cursor pointing after specified result.
+	 * @return cursor or null, if any of the key values is null (not expected as key fields are non-nullable)
+	 */
+	String buildCursor(Object lastResult)
+	{
+		List<Object> values = new ArrayList<>(fields.size() + 1);
+		values.add(fingerprint);
+
+		for(KeyField field : fields)
+		{
+			Object value;
+			try
+			{
+				value = (Object) field.accessor().invokeExact(lastResult);
+			}
+			catch(Throwable ex)
+			{
+				throw new InvalidStateException("An error occurred while fetching keyset field value - {}", field.name(), ex);
+			}
+
+			if(value == null)
+			{
+				return null;
+			}
+
+			values.add((value instanceof Enum<?> enumValue) ? enumValue.toString() : value);
+		}
+
+		try
+		{
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(OBJECT_MAPPER.writeValueAsBytes(values));
+		}
+		catch(Exception ex)
+		{
+			throw new InvalidStateException("An error occurred while building search cursor", ex);
+		}
+	}
+
+	/**
+	 * Builds seek condition selecting rows after the position of specified cursor. For key fields
+	 * k1..kn the condition is (k1 > v1) OR (k1 = v1 AND k2 > v2) OR ..., with "<" for descending fields.
+	 */
+	SearchCondition buildSeekCondition(String cursor)
+	{
+		List<Object> values = decode(cursor);
+		SearchCondition seekCondition = null;
+
+		for(int i = 0; i < fields.size(); i++)
+		{
+			SearchCondition term = null;
+			for(int j = 0; j <= i; j++)
+			{
+				KeyField field = fields.get(j);
+				Operator operator = (j < i) ? Operator.EQ : (field.orderByType() == OrderByType.DESC ? Operator.LT : Operator.GT);
+				SearchCondition condition = new SearchCondition(field.name(), operator, values.get(j));
+
+				if(term == null)
+				{
+					term = condition;
+				}
+				else
+				{
+					condition.setJoinOperator(JoinOperator.AND);
+					term.addCondition(condition);
+				}
+			}
+
+			if(seekCondition == null)
+			{
+				seekCondition = term;
+			}
+			else
+			{
+				term.setJoinOperator(JoinOperator.OR);
+				seekCondition.addCondition(term);
+			}
+		}
+
+		return seekCondition;
+	}
+
+	private List<Object> decode(String cursor)
+	{
+		List<?> rawValues;
+		try
+		{
+			rawValues = OBJECT_MAPPER.readValue(Base64.getUrlDecoder().decode(cursor.getBytes(StandardCharsets.US_ASCII)), List.class);
+		}
+		catch(Exception ex)
+		{
+			throw new InvalidRequestException("Invalid search cursor specified");
+		}
+
+		if(rawValues.size() != fields.size() + 1 || !fingerprint.equals(rawValues.get(0)))
+		{
+			throw new InvalidRequestException("Specified search cursor does not belong to current search query");
+		}
+
+		List<Object> values = new ArrayList<>(fields.size());
+		for(int i = 0; i < fields.size(); i++)
+		{
+			Object rawValue = rawValues.get(i + 1);
+			try
+			{
+				values.add(OBJECT_MAPPER.convertValue(rawValue, fields.get(i).valueType()));
+			}
+			catch(Exception ex)
+			{
+				throw new InvalidRequestException("Invalid search cursor specified");
+			}
+		}
+
+		return values;
+	}
+}
@@ -0,0 +1,32 @@
+package com.webutils.services.search;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import com.webutils.common.repo.IMissingTableRepository;
+import com.webutils.common.repo.RepositoryWriteTracker;
+import com.yukthitech.persistence.ICrudRepository;
+
+/**
+ * Wraps all repositories with {@link RepositoryWriteTracker}, so that writes on an entity invalidate
+ * cached search counts of that entity, irrespective of the repository used for the write.
+ */
+@Component
+public class SearchRepositoryTracker implements BeanPostProcessor
+{
+	@Autowired
+	private ObjectProvider<RepositoryWriteTracker> writeTrackerProvider;
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName)
+	{
+		if(!(bean instanceof ICrudRepository<?> repository) || bean instanceof IMissingTableRepository)
+		{
+			return bean;
+		}
+
+		return writeTrackerProvider.getObject().track(repository);
+	}
+}
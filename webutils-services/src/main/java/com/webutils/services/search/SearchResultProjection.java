@@ -0,0 +1,238 @@
+package com.webutils.services.search;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.text.DecimalFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.webutils.common.form.model.FieldType;
+import com.webutils.common.search.SearchRow;
+import com.webutils.common.search.SearchSettingsColumn;
+import com.yukthitech.utils.PropertyAccessor;
+import com.yukthitech.utils.exceptions.InvalidStateException;
+
+/**
+ * Immutable column projection of a search result type, compiled once per distinct
+ * column configuration. Each column holds its accessor handle and pooled formats, so
+ * that converting a result bean into display strings does not need reflection lookups
+ * or format creation per cell.
+ *
+ * As {@link SimpleDateFormat} and {@link DecimalFormat} are not thread safe, formats are
+ * pooled per pattern and confined to the calling thread.
+ */
+final class SearchResultProjection
+{
+	private static final MethodType ACCESSOR_TYPE = MethodType.methodType(Object.class, Object.class);
+
+	/**
+	 * Thread confined date formats by pattern, shared by all projections.
+	 */
+	private static final Map<String, ThreadLocal<SimpleDateFormat>> DATE_FORMATS = new ConcurrentHashMap<>();
+
+	/**
+	 * Thread confined number formats by pattern, shared by all projections.
+	 */
+	private static final Map<String, ThreadLocal<DecimalFormat>> NUMBER_FORMATS = new ConcurrentHashMap<>();
+
+	/**
+	 * Compiled details of a single column.
+	 * @param accessor getter handle with type (Object)Object, null if property has to be read via {@link PropertyAccessor}
+	 */
+	private record ColumnProjection(String propertyName, MethodHandle accessor, ThreadLocal<SimpleDateFormat> dateFormat,
+			ThreadLocal<DecimalFormat> numberFormat, boolean customType)
+	{}
+
+	private final Class<?> resultType;
+
+	private final ColumnProjection[] columns;
+
+	private final ObjectWriter jsonWriter;
+
+	private SearchResultProjection(Class<?> resultType, ColumnProjection[] columns, ObjectWriter jsonWriter)
+	{
+		this.resultType = resultType;
+		this.columns = columns;
+		this.jsonWriter = jsonWriter;
+	}
+
+	/**
+	 * Builds cache key for projection of specified columns. Columns resulting in same key
+	 * can share the same projection.
+	 */
+	static String buildKey(String searchQueryName, List<SearchSettingsColumn> columns)
+	{
+		StringBuilder builder = new StringBuilder(searchQueryName);
+		for(SearchSettingsColumn column : columns)
+		{
+			builder.append('|').append(column.getPropertyName());
+			if(column.getFieldDef() != null)
+			{
+				builder.append(':').append(column.getFieldDef().getFieldType())
+					.append(':').append(column.getFieldDef().getFormat());
+			}
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Compiles projection of specified columns for specified result type.
+	 */
+	static SearchResultProjection compile(Class<?> resultType, List<SearchSettingsColumn> columns,
+			String defaultDateFormat, String defaultNumberFormat, ObjectWriter jsonWriter)
+	{
+		ColumnProjection[] projections = new ColumnProjection[columns.size()];
+		int index = 0;
+
+		for(SearchSettingsColumn column : columns)
+		{
+			String format = (column.getFieldDef() != null) ? column.getFieldDef().getFormat() : null;
+			boolean customType = column.getFieldDef() != null && column.getFieldDef().getFieldType() == FieldType.CUSTOM_TYPE;
+
+			projections[index++] = new ColumnProjection(column.getPropertyName(),
+					compileAccessor(resultType, column.getPropertyName()),
+					dateFormat(format != null ? format : defaultDateFormat),
+					numberFormat(format != null ? format : defaultNumberFormat),
+					customType);
+		}
+
+		return new SearchResultProjection(resultType, projections, jsonWriter);
+	}
+
+	private static ThreadLocal<SimpleDateFormat> dateFormat(String pattern)
+	{
+		return DATE_FORMATS.computeIfAbsent(pattern, key -> ThreadLocal.withInitial(() -> new SimpleDateFormat(key)));
+	}
+
+	private static ThreadLocal<DecimalFormat> numberFormat(String pattern)
+	{
+		return NUMBER_FORMATS.computeIfAbsent(pattern, key -> ThreadLocal.withInitial(() -> new DecimalFormat(key)));
+	}
+
+	/**
+	 * Resolves getter handle for simple property names. Nested properties or properties
+	 * without getter are left to {@link PropertyAccessor}.
+	 */
+	private static MethodHandle compileAccessor(Class<?> resultType, String propertyName)
+	{
+		if(propertyName == null || propertyName.isEmpty() || propertyName.indexOf('.') >= 0)
+		{
+			return null;
+		}
+
+		String suffix = Character.toUpperCase(propertyName.charAt(0)) + propertyName.substring(1);
+
+		for(String prefix : new String[] {"get", "is"})
+		{
+			Method getter;
+			try
+			{
+				getter = resultType.getMethod(prefix + suffix);
+			}
+			catch(NoSuchMethodException ex)
+			{
+				continue;
+			}
+
+			if(getter.getReturnType() == void.class)
+			{
+				continue;
+			}
+
+			try
+			{
+				getter.setAccessible(true);
+				return MethodHandles.lookup().unreflect(getter).asType(ACCESSOR_TYPE);
+			}
+			catch(Exception ex)
+			{
+				return null;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Number of columns in this projection.
+	 */
+	int size()
+	{
+		return columns.length;
+	}
+
+	/**
+	 * Converts specified result into search row.
+	 */
+	SearchRow toSearchRow(Object result)
+	{
+		List<String> values = new ArrayList<>(columns.length);
+		for(int i = 0; i < columns.length; i++)
+		{
+			values.add(format(result, i));
+		}
+		return new SearchRow(values);
+	}
+
+	/**
+	 * Fetches and formats specified column value of specified result.
+	 */
+	String format(Object result, int columnIndex)
+	{
+		ColumnProjection column = columns[columnIndex];
+		Object value = readValue(result, column);
+
+		if(value == null)
+		{
+			return null;
+		}
+
+		if(value instanceof Date dateValue)
+		{
+			value = column.dateFormat().get().format(dateValue);
+		}
+		else if(value instanceof Number numberValue)
+		{
+			value = column.numberFormat().get().format(numberValue);
+		}
+
+		if(column.customType())
+		{
+			try
+			{
+				return jsonWriter.writeValueAsString(value);
+			}
+			catch(Exception ex)
+			{
+				throw new InvalidStateException("An error occurred while converting column value to json - {}", column.propertyName(), ex);
+			}
+		}
+
+		return value.toString();
+	}
+
+	private Object readValue(Object result, ColumnProjection column)
+	{
+		//results replaced by result customizers may not be of compiled type
+		if(column.accessor() == null || !resultType.isInstance(result))
+		{
+			return PropertyAccessor.getProperty(result, column.propertyName());
+		}
+
+		try
+		{
+			return (Object) column.accessor().invokeExact(result);
+		}
+		catch(Throwable ex)
+		{
+			throw new InvalidStateException("An error occurred while fetching search result property - {}", column.propertyName(), ex);
+		}
+	}
+}
@@ -1,16 +1,14 @@
 package com.webutils.services.search;
 
-import java.lang.reflect.Field;
+import java.io.IOException;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
-import java.text.DecimalFormat;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -19,6 +17,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.context.event.ContextStartedEvent;
@@ -26,13 +25,18 @@ import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.webutils.cache.CacheConfig;
+import com.webutils.cache.CacheFactory;
+import com.webutils.cache.ICache;
 import com.webutils.common.UserDetails;
-import com.webutils.common.form.annotations.ContextAttribute;
 import com.webutils.common.form.annotations.Model;
+import com.webutils.common.repo.RepositoryWriteTracker;
 import com.webutils.common.form.model.FieldType;
 import com.webutils.common.form.model.ModelDef;
 import com.webutils.common.search.ExecuteSearchResponse;
 import com.webutils.common.search.SearchColumn;
+import com.webutils.common.search.SearchCountType;
 import com.webutils.common.search.SearchExecutionModel;
 import com.webutils.common.search.SearchRow;
 import com.webutils.common.search.SearchSettingsColumn;
@@ -41,21 +45,21 @@ import com.webutils.services.common.ClassScannerService;
 import com.webutils.services.common.FreeMarkerService;
 import com.webutils.services.common.InvalidRequestException;
 import com.webutils.services.common.SecurityService;
+import com.webutils.services.common.SerializedResponse;
 import com.webutils.services.common.WebutilsFormatConfiguration;
 import com.webutils.services.form.model.ModelService;
 import com.yukthitech.persistence.ICrudRepository;
 import com.yukthitech.persistence.OrderByField;
-import com.yukthitech.persistence.repository.annotations.Condition;
-import com.yukthitech.persistence.repository.annotations.Conditions;
 import com.yukthitech.persistence.repository.annotations.Operator;
 import com.yukthitech.persistence.repository.annotations.OrderBy;
 import com.yukthitech.persistence.repository.annotations.OrderByType;
 import com.yukthitech.persistence.repository.search.SearchCondition;
 import com.yukthitech.utils.ObjectWrapper;
-import com.yukthitech.utils.PropertyAccessor;
 import com.yukthitech.utils.exceptions.InvalidConfigurationException;
 import com.yukthitech.utils.exceptions.InvalidStateException;
 
+import jakarta.annotation.PostConstruct;
+
 /**
  * Loads repository search methods and executes search queries.
  */
@@ -73,24 +77,35 @@ public class SearchService
 		private final Method method;
 		private final ICrudRepository<?> repository;
 		private final Class<?> queryType;
+		private final Class<?> resultType;
 		private final String resultTypeModelName;
 		private final String queryTypeModelName;
 		private final OrderByField[] orderByFields;
 		private final ISearchQueryCustomizer queryCustomizer;
 		private final ISearchResultCustomizer resultCustomizer;
+		private final SearchConditionPlan conditionPlan;
+
+		/**
+		 * Keyset details, null if the ordering does not support keyset paging.
+		 */
+		private SearchKeyset keyset;
 
 		private SearchQueryDetails(Method method, Class<? extends ICrudRepository<?>> repositoryType, ICrudRepository<?> repository, Class<?> resultType, Class<?> queryType,
-				OrderByField[] orderByFields, ISearchQueryCustomizer queryCustomizer, ISearchResultCustomizer resultCustomizer)
+				Map<String, OrderByType> orderBy, ISearchQueryCustomizer queryCustomizer, ISearchResultCustomizer resultCustomizer)
 		{
 			this.method = method;
 			this.repositoryType = repositoryType;
 			this.repository = repository;
 			this.queryType = queryType;
+			this.resultType = resultType;
 			this.resultTypeModelName = resolveModelName(resultType);
 			this.queryTypeModelName = resolveModelName(queryType);
-			this.orderByFields = orderByFields;
+			this.orderByFields = orderBy.entrySet().stream()
+					.map(entry -> new OrderByField(entry.getKey(), entry.getValue()))
+					.toArray(OrderByField[]::new);
 			this.queryCustomizer = queryCustomizer;
 			this.resultCustomizer = resultCustomizer;
+			this.conditionPlan = SearchConditionPlan.compile(queryType);
 		}
 
 		private static String resolveModelName(Class<?> modelType)
@@ -101,6 +116,19 @@ public class SearchService
 		}
 	}
 
+	/**
+	 * Key of cached count.
+	 * @param conditions condition field names followed by their normalized values
+	 */
+	private record CountKey(String searchQueryName, long entityVersion, boolean estimate, List<Object> conditions)
+	{}
+
+	/**
+	 * Total count of a search along with how it was computed.
+	 */
+	private record SearchCount(long count, SearchCountType countType, long computedAt)
+	{}
+
 	private final Map<String, SearchQueryDetails> nameToSearchMet = new HashMap<>();
 
 	@Lazy
@@ -126,10 +154,50 @@ public class SearchService
 	@Autowired
 	private FreeMarkerService freeMarkerService;
 
-	private final ObjectMapper objectMapper = new ObjectMapper();
+	@Autowired
+	private CacheFactory cacheFactory;
+
+	/**
+	 * Shared json writer for custom-type column values.
+	 */
+	private final ObjectWriter jsonWriter = new ObjectMapper().writer();
+
+	/**
+	 * Compiled result projections by query name and column configuration.
+	 */
+	private ICache<String, SearchResultProjection> projectionCache;
+
+	@Autowired
+	private RepositoryWriteTracker repositoryWriteTracker;
+
+	/**
+	 * Computed counts by query name, entity write version and conditions.
+	 */
+	private ICache<CountKey, SearchCount> countCache;
+
+	/** Time for which computed counts are reused, zero disables count caching. */
+	@Value("${webutils.search.count.cacheTimeSec:30}")
+	private long countCacheTimeSec;
+
+	/** Count beyond which estimate-count mode stops counting. */
+	@Value("${webutils.search.count.estimateCap:10000}")
+	private int countEstimateCap;
+
+	/** Number of rows fetched from repository per round-trip during export. */
+	@Value("${webutils.search.export.batchSize:1000}")
+	private int exportBatchSize;
 
 	private boolean initialized = false;
 
+	@PostConstruct
+	private void init()
+	{
+		projectionCache = cacheFactory.getCache("SearchService.projectionCache",
+				new CacheConfig<String, SearchResultProjection>().maxSize(500));
+		countCache = cacheFactory.getCache("SearchService.countCache",
+				new CacheConfig<CountKey, SearchCount>().maxSize(2000));
+	}
+
 	@EventListener
 	public void loadSearchMethods(ContextStartedEvent event)
 	{
@@ -200,7 +268,7 @@ public class SearchService
 
 		logger.info("Loading search method - {}.{}", method.getDeclaringClass().getName(), method.getName());
 
-		List<OrderByField> orderByFields = new ArrayList<>();
+		Map<String, OrderByType> orderBy = new LinkedHashMap<>();
 		OrderBy orderByAnnot = method.getAnnotation(OrderBy.class);
 		if(orderByAnnot != null)
 		{
@@ -209,7 +277,7 @@ public class SearchService
 			{
 				for(com.yukthitech.persistence.repository.annotations.OrderByField annot : fieldsAnnot)
 				{
-					orderByFields.add(new OrderByField(annot.name(), annot.type()));
+					orderBy.putIfAbsent(annot.name(), annot.type());
 				}
 			}
 			String[] fieldNames = orderByAnnot.value();
@@ -217,20 +285,22 @@ public class SearchService
 			{
 				for(String field : fieldNames)
 				{
-					orderByFields.add(new OrderByField(field, OrderByType.ASC));
+					orderBy.putIfAbsent(field, OrderByType.ASC);
 				}
 			}
 		}
 		else
 		{
-			orderByFields.add(new OrderByField("id", OrderByType.ASC));
+			orderBy.put("id", OrderByType.ASC);
 		}
 
 		ISearchQueryCustomizer queryCustomizer = resolveCustomizer(annotation.queryCustomizer(), ISearchQueryCustomizer.class);
 		ISearchResultCustomizer resultCustomizer = resolveCustomizer(annotation.resultCustomizer(), ISearchResultCustomizer.class);
 
-		nameToSearchMet.put(queryName, new SearchQueryDetails(method, repoType, repository, returnModelType, queryModelType,
-				orderByFields.toArray(new OrderByField[0]), queryCustomizer, resultCustomizer));
+		SearchQueryDetails details = new SearchQueryDetails(method, repoType, repository, returnModelType, queryModelType,
+				orderBy, queryCustomizer, resultCustomizer);
+		details.keyset = SearchKeyset.compile(queryName, orderBy, returnModelType, repository.getEntityDetails().getEntityType());
+		nameToSearchMet.put(queryName, details);
 	}
 
 	@SuppressWarnings("unchecked")
@@ -249,6 +319,12 @@ public class SearchService
 		return modelService.getModelDef(details.queryTypeModelName);
 	}
 
+	public SerializedResponse getSearchQueryDefinitionResponse(String searchQueryName)
+	{
+		SearchQueryDetails details = getSearchQueryDetails(searchQueryName);
+		return modelService.getModelDefResponse(details.queryTypeModelName);
+	}
+
 	public Class<?> getSearchQueryType(String searchQueryName)
 	{
 		return getSearchQueryDetails(searchQueryName).queryType;
@@ -260,6 +336,12 @@ public class SearchService
 		return modelService.getModelDef(details.resultTypeModelName);
 	}
 
+	public SerializedResponse getSearchResultDefinitionResponse(String searchQueryName)
+	{
+		SearchQueryDetails details = getSearchQueryDetails(searchQueryName);
+		return modelService.getModelDefResponse(details.resultTypeModelName);
+	}
+
 	public Class<?> getEntityTypeOf(String searchQueryName)
 	{
 		return getSearchQueryDetails(searchQueryName).repository.getEntityDetails().getEntityType();
@@ -280,33 +362,8 @@ public class SearchService
 		return details;
 	}
 
-	private boolean isLikeOperator(Condition condition, Conditions conditions)
-	{
-		if(condition != null)
-		{
-			return condition.op() == Operator.LIKE;
-		}
-		if(conditions != null)
-		{
-			for(Condition cond : conditions.value())
-			{
-				if(cond.op() != Operator.LIKE)
-				{
-					return false;
-				}
-			}
-			return true;
-		}
-		return false;
-	}
-
-	@SuppressWarnings({"unchecked", "rawtypes"})
-	private List<Object> searchObjects(String searchQueryName, Object query, SearchExecutionModel searchExecutionModel,
-			ObjectWrapper<SearchSettingsEntity> searchSettingsWrapper,
-			ObjectWrapper<com.yukthitech.persistence.repository.search.SearchQuery> queryWrapper)
+	private void prepareQuery(SearchQueryDetails searchQueryDetails, String searchQueryName, Object query)
 	{
-		SearchQueryDetails searchQueryDetails = getSearchQueryDetails(searchQueryName);
-
 		if(query != null && !searchQueryDetails.queryType.isAssignableFrom(query.getClass()))
 		{
 			throw new InvalidRequestException("Invalid search query bean type {} specified for search query {}. Expected type - {}",
@@ -323,13 +380,21 @@ public class SearchService
 					.setSearchQueryName(searchQueryName)
 					.setQuery(query));
 		}
+	}
 
+	/**
+	 * Builds repository query for specified (already prepared) query bean.
+	 */
+	private com.yukthitech.persistence.repository.search.SearchQuery newRepositorySearchQuery(SearchQueryDetails searchQueryDetails,
+			Object query, SearchSettingsEntity searchSettings, List<Object> conditionKey)
+	{
 		com.yukthitech.persistence.repository.search.SearchQuery repoSearchQuery = new com.yukthitech.persistence.repository.search.SearchQuery();
-		queryWrapper.setValue(repoSearchQuery);
 
 		if(query != null)
 		{
-			buildConditions(searchQueryDetails, query, buildExpressionContext(query), repoSearchQuery);
+			SearchConditionPlan conditionPlan = searchQueryDetails.conditionPlan;
+			Map<String, Object> expressionContext = conditionPlan.isContextAttributesUsed() ? buildExpressionContext(query) : null;
+			conditionPlan.apply(query, expressionContext, freeMarkerService, repoSearchQuery, conditionKey);
 		}
 
 		UserDetails userDetails = UserContext.getCurrentUser();
@@ -337,40 +402,156 @@ public class SearchService
 				&& searchQueryDetails.repository.getEntityDetails().hasField("spaceIdentity"))
 		{
 			repoSearchQuery.addCondition(new SearchCondition("spaceIdentity", Operator.EQ, userDetails.getCustomSpace()));
+
+			if(conditionKey != null)
+			{
+				conditionKey.add("spaceIdentity");
+				conditionKey.add(userDetails.getCustomSpace());
+			}
 		}
 
 		repoSearchQuery.setOrderByFields(Arrays.asList(searchQueryDetails.orderByFields));
 
-		SearchSettingsEntity searchSettings = searchSettingsService.fetchSettings(searchQueryName);
-		searchSettingsWrapper.setValue(searchSettings);
-
 		for(SearchSettingsColumn column : searchSettings.getSearchColumns())
 		{
 			if(column.isRequired() || column.isDisplayed() || column.isBackend())
 			{
 				continue;
 			}
+
+			// keyset values are read from results, so key fields are always fetched
+			if(searchQueryDetails.keyset != null && searchQueryDetails.keyset.isKeyField(column.getFieldName()))
+			{
+				continue;
+			}
+
 			repoSearchQuery.addExcludedField(column.getFieldName());
 		}
 
+		return repoSearchQuery;
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private List<Object> invokeSearchMethod(SearchQueryDetails searchQueryDetails, String searchQueryName,
+			com.yukthitech.persistence.repository.search.SearchQuery repoSearchQuery)
+	{
+		try
+		{
+			return (List) searchQueryDetails.method.invoke(searchQueryDetails.repository, repoSearchQuery);
+		}
+		catch(Exception ex)
+		{
+			throw new InvalidStateException("An error occurred while executing search query - {}", searchQueryName, ex);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<Object> customizeResults(SearchQueryDetails searchQueryDetails, String searchQueryName, Object query, List<Object> results)
+	{
+		if(searchQueryDetails.resultCustomizer == null)
+		{
+			return results;
+		}
+
+		return (List<Object>) searchQueryDetails.resultCustomizer.customize(new SearchCustomizationContext()
+				.setRepositoryType(searchQueryDetails.repositoryType)
+				.setMethod(searchQueryDetails.method)
+				.setSearchQueryName(searchQueryName)
+				.setQuery(query), results);
+	}
+
+	/**
+	 * Computes total count of specified query. Counts are cached for {@link #countCacheTimeSec} keyed by
+	 * query name, normalized conditions and the write version of the entity, so that local writes on the
+	 * entity invalidate them. In estimate mode, a single row probe at the cap offset is used to avoid
+	 * counting beyond the cap.
+	 */
+	private SearchCount resolveCount(SearchQueryDetails searchQueryDetails, String searchQueryName,
+			com.yukthitech.persistence.repository.search.SearchQuery repoSearchQuery, List<Object> conditionKey, boolean estimate)
+	{
+		Class<?> entityType = searchQueryDetails.repository.getEntityDetails().getEntityType();
+		CountKey cacheKey = new CountKey(searchQueryName, repositoryWriteTracker.getVersion(entityType), estimate, conditionKey);
+
+		if(countCacheTimeSec > 0)
+		{
+			SearchCount cachedCount = countCache.get(cacheKey);
+			if(cachedCount != null && (System.currentTimeMillis() - cachedCount.computedAt()) < countCacheTimeSec * 1000)
+			{
+				SearchCountType countType = (cachedCount.countType() == SearchCountType.ESTIMATED) ? SearchCountType.ESTIMATED : SearchCountType.CACHED;
+				return new SearchCount(cachedCount.count(), countType, cachedCount.computedAt());
+			}
+		}
+
+		SearchCount count = null;
+		if(estimate && countEstimateCap > 0)
+		{
+			repoSearchQuery.setResultsOffset(countEstimateCap);
+			repoSearchQuery.setResultsLimit(1);
+			List<Object> probe = invokeSearchMethod(searchQueryDetails, searchQueryName, repoSearchQuery);
+
+			if(probe != null && !probe.isEmpty())
+			{
+				count = new SearchCount(countEstimateCap, SearchCountType.ESTIMATED, System.currentTimeMillis());
+			}
+		}
+
+		if(count == null)
+		{
+			count = new SearchCount(searchQueryDetails.repository.searchCount(repoSearchQuery), SearchCountType.EXACT, System.currentTimeMillis());
+		}
+
+		if(countCacheTimeSec > 0)
+		{
+			countCache.set(cacheKey, count);
+		}
+
+		return count;
+	}
+
+	private boolean isKeysetPaging(SearchQueryDetails searchQueryDetails, SearchExecutionModel searchExecutionModel)
+	{
+		return searchExecutionModel.isCursorPaging() && !searchExecutionModel.isFetchAll() && searchQueryDetails.keyset != null;
+	}
+
+	private List<Object> searchObjects(String searchQueryName, Object query, SearchExecutionModel searchExecutionModel,
+			ObjectWrapper<SearchSettingsEntity> searchSettingsWrapper, ObjectWrapper<SearchCount> countWrapper)
+	{
+		SearchQueryDetails searchQueryDetails = getSearchQueryDetails(searchQueryName);
+		prepareQuery(searchQueryDetails, searchQueryName, query);
+
+		SearchSettingsEntity searchSettings = searchSettingsService.fetchSettings(searchQueryName);
+		searchSettingsWrapper.setValue(searchSettings);
+
+		List<Object> conditionKey = searchExecutionModel.isFetchCount() ? new ArrayList<>() : null;
+		com.yukthitech.persistence.repository.search.SearchQuery repoSearchQuery = newRepositorySearchQuery(searchQueryDetails, query,
+				searchSettings, conditionKey);
+
+		// count should be computed before seek condition is added
+		if(searchExecutionModel.isFetchCount())
+		{
+			countWrapper.setValue(resolveCount(searchQueryDetails, searchQueryName, repoSearchQuery, conditionKey,
+					searchExecutionModel.isEstimateCount()));
+		}
+
 		int pageSize = -1;
 		if(!searchExecutionModel.isFetchAll())
 		{
 			pageSize = resolveEffectivePageSize(searchExecutionModel, searchSettings);
 		}
 
-		int pageNo = searchExecutionModel.getPageNumber();
-		repoSearchQuery.setResultsOffset((pageNo - 1) * pageSize);
-		repoSearchQuery.setResultsLimit(pageSize);
-
-		try
+		if(isKeysetPaging(searchQueryDetails, searchExecutionModel) && StringUtils.isNotBlank(searchExecutionModel.getCursor()))
 		{
-			return (List) searchQueryDetails.method.invoke(searchQueryDetails.repository, repoSearchQuery);
+			repoSearchQuery.addCondition(searchQueryDetails.keyset.buildSeekCondition(searchExecutionModel.getCursor()));
+			repoSearchQuery.setResultsOffset(0);
 		}
-		catch(Exception ex)
+		else
 		{
-			throw new InvalidStateException("An error occurred while executing search query - {}", searchQueryName, ex);
+			int pageNo = searchExecutionModel.getPageNumber();
+			repoSearchQuery.setResultsOffset((pageNo - 1) * pageSize);
 		}
+
+		repoSearchQuery.setResultsLimit(pageSize);
+		return invokeSearchMethod(searchQueryDetails, searchQueryName, repoSearchQuery);
 	}
 
 	/**
@@ -412,138 +593,134 @@ public class SearchService
 		return context;
 	}
 
-	private void buildConditions(SearchQueryDetails searchQueryDetails, Object query, Map<String, Object> expressionContext,
-			com.yukthitech.persistence.repository.search.SearchQuery repoSearchQuery)
+	public ExecuteSearchResponse executeSearch(String searchQueryName, Object query, SearchExecutionModel searchExecutionModel)
 	{
-		for(Field field : searchQueryDetails.queryType.getDeclaredFields())
+		ObjectWrapper<SearchSettingsEntity> searchSettingsWrapper = new ObjectWrapper<>();
+		ObjectWrapper<SearchCount> countWrapper = new ObjectWrapper<>();
+
+		List<Object> results = searchObjects(searchQueryName, query, searchExecutionModel, searchSettingsWrapper, countWrapper);
+		SearchQueryDetails searchQueryDetails = getSearchQueryDetails(searchQueryName);
+
+		SearchCount count = countWrapper.getValue();
+
+		// cursor is built from raw results, as customizers may replace the result beans
+		String nextCursor = null;
+		if(isKeysetPaging(searchQueryDetails, searchExecutionModel) && results != null && !results.isEmpty()
+				&& results.size() >= resolveEffectivePageSize(searchExecutionModel, searchSettingsWrapper.getValue()))
 		{
-			Condition condition = field.getAnnotation(Condition.class);
-			Conditions conditions = field.getAnnotation(Conditions.class);
-			if(condition == null && conditions == null)
-			{
-				continue;
-			}
+			nextCursor = searchQueryDetails.keyset.buildCursor(results.get(results.size() - 1));
+		}
+
+		results = customizeResults(searchQueryDetails, searchQueryName, query, results);
+
+		ExecuteSearchResponse response = toResponse(searchQueryName, searchQueryDetails, results, searchSettingsWrapper.getValue(), searchExecutionModel);
+		response.setNextCursor(nextCursor);
+
+		if(count != null)
+		{
+			response.setTotalCount(count.count());
+			response.setCountType(count.countType());
+		}
+
+		return response;
+	}
+
+	/**
+	 * Executes specified search query and streams all matching results to specified writer. Results are fetched
+	 * from the repository in batches of {@link #exportBatchSize} rows and each batch is written and flushed before
+	 * the next one is fetched, so that heap usage does not depend on the number of matching rows.
+	 * Only displayed columns are exported.
+	 */
+	public void exportSearch(String searchQueryName, Object query, ISearchExportWriter writer) throws IOException
+	{
+		SearchQueryDetails searchQueryDetails = getSearchQueryDetails(searchQueryName);
+		prepareQuery(searchQueryDetails, searchQueryName, query);
+
+		SearchSettingsEntity searchSettings = searchSettingsService.fetchSettings(searchQueryName);
 
-			field.setAccessible(true);
-			Object value = readFieldValue(field, query, expressionContext);
-			if(value == null)
+		List<SearchSettingsColumn> exportColumns = new ArrayList<>();
+		List<String> headings = new ArrayList<>();
+		for(SearchSettingsColumn column : searchSettings.getSearchColumns())
+		{
+			if(column.isDisplayed())
 			{
-				continue;
+				exportColumns.add(column);
+				headings.add(column.getLabel());
 			}
+		}
+
+		writer.writeHeadings(headings);
+
+		SearchResultProjection projection = getProjection(searchQueryName, searchQueryDetails, exportColumns);
+		List<String> rowValues = new ArrayList<>(projection.size());
+		SearchKeyset keyset = searchQueryDetails.keyset;
+		String cursor = null;
+		int offset = 0;
+
+		while(true)
+		{
+			// when keyset is supported, batches are fetched by seeking after last row of previous batch
+			com.yukthitech.persistence.repository.search.SearchQuery repoSearchQuery = newRepositorySearchQuery(searchQueryDetails, query, searchSettings, null);
+			repoSearchQuery.setResultsLimit(exportBatchSize);
 
-			if(value instanceof String strValue)
+			if(cursor != null)
 			{
-				if(strValue.trim().isEmpty())
-				{
-					continue;
-				}
-				strValue = strValue.replace("*", "%");
-				if(isLikeOperator(condition, conditions) && !strValue.contains("%"))
-				{
-					strValue = "%" + strValue + "%";
-				}
-				value = strValue;
+				repoSearchQuery.addCondition(keyset.buildSeekCondition(cursor));
+				repoSearchQuery.setResultsOffset(0);
 			}
-
-			if(value instanceof Enum<?> enumValue)
+			else
 			{
-				value = enumValue.toString();
+				repoSearchQuery.setResultsOffset(offset);
 			}
 
-			SearchCondition searchCondition;
-			if(condition != null)
+			List<Object> batch = invokeSearchMethod(searchQueryDetails, searchQueryName, repoSearchQuery);
+			int fetchedCount = (batch == null) ? 0 : batch.size();
+
+			if(fetchedCount == 0)
 			{
-				searchCondition = new SearchCondition(condition.value(), condition.op(), value);
-				searchCondition.setIgnoreCase(condition.ignoreCase());
+				break;
 			}
-			else
+
+			// null key values cannot be seeked, in which case paging continues by offset
+			offset += fetchedCount;
+			cursor = (keyset != null) ? keyset.buildCursor(batch.get(fetchedCount - 1)) : null;
+
+			batch = customizeResults(searchQueryDetails, searchQueryName, query, batch);
+
+			if(batch != null)
 			{
-				searchCondition = null;
-				for(Condition cond : conditions.value())
+				for(Object result : batch)
 				{
-					SearchCondition subcond = new SearchCondition(cond.value(), cond.op(), value);
-					subcond.setIgnoreCase(cond.ignoreCase());
-					if(searchCondition == null)
+					rowValues.clear();
+					for(int i = 0; i < projection.size(); i++)
 					{
-						searchCondition = subcond;
-					}
-					else
-					{
-						subcond.setJoinOperator(cond.joinWith());
-						searchCondition.addCondition(subcond);
+						rowValues.add(projection.format(result, i));
 					}
+					writer.writeRow(rowValues);
 				}
 			}
 
-			repoSearchQuery.addCondition(searchCondition);
-		}
-	}
+			writer.flush();
 
-	private Object readFieldValue(Field field, Object query, Map<String, Object> expressionContext)
-	{
-		ContextAttribute contextAttribute = field.getAnnotation(ContextAttribute.class);
-		if(contextAttribute == null)
-		{
-			try
-			{
-				return field.get(query);
-			}
-			catch(Exception ex)
+			if(fetchedCount < exportBatchSize)
 			{
-				throw new InvalidStateException("An error occurred while fetching field value - {}", field.getName(), ex);
+				break;
 			}
 		}
-
-		try
-		{
-			return freeMarkerService.fetchValue("search-context-attribute-" + field.getName(), contextAttribute.value(), expressionContext);
-		}
-		catch(Exception ex)
-		{
-			throw new InvalidStateException("An error occurred while fetching context attribute - {}", contextAttribute.value(), ex);
-		}
 	}
 
-	@SuppressWarnings("unchecked")
-	public ExecuteSearchResponse executeSearch(String searchQueryName, Object query, SearchExecutionModel searchExecutionModel)
+	private SearchResultProjection getProjection(String searchQueryName, SearchQueryDetails searchQueryDetails, List<SearchSettingsColumn> columns)
 	{
-		ObjectWrapper<SearchSettingsEntity> searchSettingsWrapper = new ObjectWrapper<>();
-		ObjectWrapper<com.yukthitech.persistence.repository.search.SearchQuery> queryWrapper = new ObjectWrapper<>();
-
-		List<Object> results = searchObjects(searchQueryName, query, searchExecutionModel, searchSettingsWrapper, queryWrapper);
-		SearchQueryDetails searchQueryDetails = getSearchQueryDetails(searchQueryName);
-
-		long count = 0;
-		if(searchExecutionModel.isFetchCount())
-		{
-			count = searchQueryDetails.repository.searchCount(queryWrapper.getValue());
-		}
-
-		if(searchQueryDetails.resultCustomizer != null)
-		{
-			results = (List<Object>) searchQueryDetails.resultCustomizer.customize(new SearchCustomizationContext()
-					.setRepositoryType(searchQueryDetails.repositoryType)
-					.setMethod(searchQueryDetails.method)
-					.setSearchQueryName(searchQueryName)
-					.setQuery(query), results);
-		}
-
-		try
-		{
-			return toResponse(results, searchSettingsWrapper.getValue(), searchExecutionModel, count);
-		}
-		catch(Exception ex)
-		{
-			throw new InvalidStateException("An error occurred while converting to responses", ex);
-		}
+		return projectionCache.computeIfAbsent(SearchResultProjection.buildKey(searchQueryName, columns),
+				() -> SearchResultProjection.compile(searchQueryDetails.resultType, columns,
+						formatConfiguration.getDateFormat(), formatConfiguration.getNumberFormat(), jsonWriter));
 	}
 
-	private ExecuteSearchResponse toResponse(List<Object> results, SearchSettingsEntity searchSettings,
-			SearchExecutionModel searchExecutionModel, long count) throws Exception
+	private ExecuteSearchResponse toResponse(String searchQueryName, SearchQueryDetails searchQueryDetails, List<Object> results,
+			SearchSettingsEntity searchSettings, SearchExecutionModel searchExecutionModel)
 	{
 		ExecuteSearchResponse response = new ExecuteSearchResponse(results);
 		response.setPageNumber(searchExecutionModel.getPageNumber());
-		response.setTotalCount(count);
 
 		int effectivePageSize;
 		if(searchExecutionModel.isFetchAll())
@@ -556,10 +733,12 @@ public class SearchService
 		}
 		response.setPageSize(effectivePageSize);
 
+		List<SearchSettingsColumn> resultColumns = new ArrayList<>();
 		for(SearchSettingsColumn column : searchSettings.getSearchColumns())
 		{
 			if(column.isRequired() || column.isDisplayed() || column.isBackend())
 			{
+				resultColumns.add(column);
 				response.addSearchColumn(new SearchColumn(column.getPropertyName(), column.getLabel(), column.isDisplayed(),
 						FieldType.STRING, column.getSearchResultType()));
 			}
@@ -571,65 +750,15 @@ public class SearchService
 			return response;
 		}
 
-		Map<String, SimpleDateFormat> dateFormats = new HashMap<>();
-		SimpleDateFormat defaultDateFormat = formatConfiguration.newDateFormat();
-		DecimalFormat defaultNumberFormat = formatConfiguration.newNumberFormat();
+		SearchResultProjection projection = getProjection(searchQueryName, searchQueryDetails, resultColumns);
+		List<SearchRow> searchRows = new ArrayList<>(results.size());
 
 		for(Object result : results)
 		{
-			SearchRow searchRow = new SearchRow();
-			for(SearchSettingsColumn column : searchSettings.getSearchColumns())
-			{
-				if(!column.isRequired() && !column.isDisplayed() && !column.isBackend())
-				{
-					continue;
-				}
-
-				Object value = PropertyAccessor.getProperty(result, column.getPropertyName());
-				if(value == null)
-				{
-					searchRow.addValue(null);
-					continue;
-				}
-
-				if(value instanceof Date dateValue)
-				{
-					if(column.getFieldDef() != null && column.getFieldDef().getFormat() != null)
-					{
-						SimpleDateFormat dateFormat = dateFormats.computeIfAbsent(column.getFieldDef().getFormat(),
-								SimpleDateFormat::new);
-						value = dateFormat.format(dateValue);
-					}
-					else
-					{
-						value = defaultDateFormat.format(dateValue);
-					}
-				}
-
-				if(value instanceof Number numberValue)
-				{
-					if(column.getFieldDef() != null && column.getFieldDef().getFormat() != null)
-					{
-						value = new DecimalFormat(column.getFieldDef().getFormat()).format(numberValue);
-					}
-					else
-					{
-						value = defaultNumberFormat.format(numberValue);
-					}
-				}
-
-				if(column.getFieldDef() != null && column.getFieldDef().getFieldType() == FieldType.CUSTOM_TYPE)
-				{
-					searchRow.addValue(objectMapper.writeValueAsString(value));
-				}
-				else
-				{
-					searchRow.addValue(value.toString());
-				}
-			}
-			response.addSearchResult(searchRow);
+			searchRows.add(projection.toSearchRow(result));
 		}
 
+		response.setSearchResults(searchRows);
 		return response;
 	}
 }
@@ -4,16 +4,20 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.webutils.cache.CacheConfig;
+import com.webutils.cache.CacheFactory;
+import com.webutils.cache.ICache;
 import com.webutils.common.form.annotations.SearchFieldInfo;
 import com.webutils.common.form.model.FieldDef;
 import com.webutils.common.form.model.ModelDef;
@@ -30,6 +34,8 @@ import com.yukthitech.utils.exceptions.InvalidArgumentException;
 import com.yukthitech.utils.exceptions.InvalidStateException;
 import com.yukthitech.validation.annotations.Required;
 
+import jakarta.annotation.PostConstruct;
+
 /**
  * Manages per-user search column and pagination settings.
  */
@@ -46,7 +52,36 @@ public class SearchSettingsService
 	@Autowired
 	private SearchService searchService;
 
-	private final Map<String, SearchSettingsEntity> nameToDefaultSettings = new HashMap<>();
+	@Autowired
+	private CacheFactory cacheFactory;
+
+	private final Map<String, SearchSettingsEntity> nameToDefaultSettings = new ConcurrentHashMap<>();
+
+	/**
+	 * Available columns by search query name. Result model definitions do not change at runtime,
+	 * so these are built once per query.
+	 */
+	private final Map<String, LinkedHashMap<SearchSettingsColumn, SearchSettingsColumn>> nameToSettingsColumns = new ConcurrentHashMap<>();
+
+	/**
+	 * Resolved settings (saved or default) by user id and query name. Cached settings are never
+	 * handed out, callers get copies of them.
+	 */
+	private ICache<String, SearchSettingsEntity> settingsCache;
+
+	@PostConstruct
+	private void init()
+	{
+		settingsCache = cacheFactory.getCache("SearchSettingsService.settingsCache",
+				new CacheConfig<String, SearchSettingsEntity>()
+					.expireAfterAccess(30, TimeUnit.MINUTES)
+					.maxSize(5000));
+	}
+
+	private static String cacheKey(Long userId, String searchQueryName)
+	{
+		return userId + "#" + searchQueryName;
+	}
 
 	private boolean isRepositoryAvailable()
 	{
@@ -54,6 +89,11 @@ public class SearchSettingsService
 	}
 
 	private LinkedHashMap<SearchSettingsColumn, SearchSettingsColumn> getSettingsColumns(String searchQuery)
+	{
+		return nameToSettingsColumns.computeIfAbsent(searchQuery, this::buildSettingsColumns);
+	}
+
+	private LinkedHashMap<SearchSettingsColumn, SearchSettingsColumn> buildSettingsColumns(String searchQuery)
 	{
 		ModelDef searchResultDef = searchService.getSearhResultDefinition(searchQuery);
 		LinkedHashMap<SearchSettingsColumn, SearchSettingsColumn> searchColumns = new LinkedHashMap<>();
@@ -98,22 +138,20 @@ public class SearchSettingsService
 		return searchColumns;
 	}
 
-	private synchronized SearchSettingsEntity defaultSettings(String searchQuery)
+	private SearchSettingsEntity defaultSettings(String searchQuery)
 	{
-		SearchSettingsEntity settings = nameToDefaultSettings.get(searchQuery);
-		if(settings != null)
-		{
-			return settings;
-		}
+		return nameToDefaultSettings.computeIfAbsent(searchQuery, this::buildDefaultSettings);
+	}
 
+	private SearchSettingsEntity buildDefaultSettings(String searchQuery)
+	{
 		List<SearchSettingsColumn> searchColumnsLst = new ArrayList<>(getSettingsColumns(searchQuery).keySet());
 		Collections.sort(searchColumnsLst, Comparator.comparingInt(SearchSettingsColumn::getOrder));
 
-		settings = new SearchSettingsEntity();
+		SearchSettingsEntity settings = new SearchSettingsEntity();
 		settings.setSearchColumns(searchColumnsLst);
 		settings.setPageSize(DEFAULT_PAGE_SIZE);
 		settings.setSearchQueryName(searchQuery);
-		nameToDefaultSettings.put(searchQuery, settings);
 		return settings;
 	}
 
@@ -187,19 +225,62 @@ public class SearchSettingsService
 		return toModel(fetchSettings(searchQueryName));
 	}
 
+	/**
+	 * Fetches settings (saved or default) of current user for specified query. Returned settings
+	 * are a copy, which can be modified by caller.
+	 */
 	public SearchSettingsEntity fetchSettings(String searchQueryName)
 	{
 		if(!isRepositoryAvailable())
 		{
-			return defaultSettings(searchQueryName);
+			return copyOf(defaultSettings(searchQueryName));
 		}
 
 		Long userId = UserContext.getCurrentUserId();
 		if(userId == null)
 		{
-			return defaultSettings(searchQueryName);
+			return copyOf(defaultSettings(searchQueryName));
 		}
 
+		return copyOf(settingsCache.computeIfAbsent(cacheKey(userId, searchQueryName), () -> loadSettings(userId, searchQueryName)));
+	}
+
+	private static SearchSettingsEntity copyOf(SearchSettingsEntity settings)
+	{
+		SearchSettingsEntity copy = new SearchSettingsEntity();
+		copy.setId(settings.getId());
+		copy.setVersion(settings.getVersion());
+		copy.setUser(settings.getUser());
+		copy.setSearchQueryName(settings.getSearchQueryName());
+		copy.setPageSize(settings.getPageSize());
+		copy.setCreatedOn(settings.getCreatedOn());
+		copy.setUpdatedOn(settings.getUpdatedOn());
+		copy.setCreatedBy(settings.getCreatedBy());
+		copy.setUpdatedBy(settings.getUpdatedBy());
+
+		if(settings.getSearchColumns() != null)
+		{
+			List<SearchSettingsColumn> columns = new ArrayList<>(settings.getSearchColumns().size());
+			settings.getSearchColumns().forEach(column -> columns.add(copyOf(column)));
+			copy.setSearchColumns(columns);
+		}
+
+		return copy;
+	}
+
+	private static SearchSettingsColumn copyOf(SearchSettingsColumn column)
+	{
+		SearchSettingsColumn copy = new SearchSettingsColumn(column.getLabel(), column.isDisplayed(), column.isBackend(),
+				(column.getFields() == null) ? null : new ArrayList<>(column.getFields()));
+		copy.setRequired(column.isRequired());
+		copy.setOrder(column.getOrder());
+		copy.setSearchResultType(column.getSearchResultType());
+		copy.setFieldDef(column.getFieldDef());
+		return copy;
+	}
+
+	private SearchSettingsEntity loadSettings(Long userId, String searchQueryName)
+	{
 		SearchSettingsEntity entity = repository.fetchByName(userId, searchQueryName);
 		if(entity == null)
 		{
@@ -231,6 +312,7 @@ public class SearchSettingsService
 		{
 			repository.save(entity);
 			transaction.commit();
+			settingsCache.remove(cacheKey(userId, entity.getSearchQueryName()));
 		}
 		catch(Exception ex)
 		{
@@ -271,6 +353,7 @@ public class SearchSettingsService
 				throw new InvalidStateException("Failed to update search settings");
 			}
 			transaction.commit();
+			settingsCache.remove(cacheKey(userId, entity.getSearchQueryName()));
 		}
 		catch(Exception ex)
 		{
@@ -322,7 +405,9 @@ public class SearchSettingsService
 		{
 			return;
 		}
-		repository.deleteByName(UserContext.getCurrentUserId(), queryName);
+		Long userId = UserContext.getCurrentUserId();
+		repository.deleteByName(userId, queryName);
+		settingsCache.remove(cacheKey(userId, queryName));
 	}
 
 	public void deleteAll()
@@ -332,6 +417,7 @@ public class SearchSettingsService
 			return;
 		}
 		repository.deleteAll();
+		settingsCache.clear();
 	}
 
 	private SearchSettingsEntity toEntity(SearchSettingsModel model)
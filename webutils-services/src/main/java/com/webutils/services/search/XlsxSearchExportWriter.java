@@ -0,0 +1,83 @@
+package com.webutils.services.search;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+/**
+ * Writes search export rows into an xlsx workbook using POI streaming api. Only a small window
+ * of rows is kept in memory, older rows are flushed to a compressed temp file, and the workbook is
+ * written to the output stream on close. As nothing is written to the stream before close, an aborted
+ * export leaves the stream untouched.
+ */
+public class XlsxSearchExportWriter implements ISearchExportWriter
+{
+	/** Number of rows kept in memory before they are flushed to temp file. */
+	private static final int ROW_ACCESS_WINDOW = 100;
+
+	private final OutputStream outputStream;
+	private final SXSSFWorkbook workbook;
+	private final SXSSFSheet sheet;
+	private int rowIndex = 0;
+	private boolean aborted = false;
+
+	public XlsxSearchExportWriter(OutputStream outputStream, String sheetName)
+	{
+		this.outputStream = outputStream;
+		this.workbook = new SXSSFWorkbook(ROW_ACCESS_WINDOW);
+		this.workbook.setCompressTempFiles(true);
+		this.sheet = workbook.createSheet(sheetName);
+	}
+
+	@Override
+	public void writeHeadings(List<String> headings) throws IOException
+	{
+		writeRow(headings);
+	}
+
+	@Override
+	public void writeRow(List<String> values) throws IOException
+	{
+		Row row = sheet.createRow(rowIndex++);
+		int size = values.size();
+		for(int i = 0; i < size; i++)
+		{
+			String value = values.get(i);
+			row.createCell(i).setCellValue(value == null ? "" : value);
+		}
+	}
+
+	@Override
+	public void flush() throws IOException
+	{
+		sheet.flushRows();
+	}
+
+	@Override
+	public void abort()
+	{
+		aborted = true;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			if(!aborted)
+			{
+				workbook.write(outputStream);
+				outputStream.flush();
+			}
+		}
+		finally
+		{
+			//closing streaming workbook also deletes the temp files
+			workbook.close();
+		}
+	}
+}
@@ -1,9 +1,17 @@
 package com.webutils.services.token;
 
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,13 +22,17 @@ import com.webutils.cache.CacheConfig;
 import com.webutils.cache.CacheFactory;
 import com.webutils.cache.ICache;
 import com.webutils.common.UserDetails;
+import com.webutils.services.auth.RoleRegistry;
 import com.webutils.services.auth.UserContext;
 import com.webutils.services.common.ExecutionService;
+import com.webutils.services.common.ExpiredRecordSweeper;
 import com.webutils.services.common.UnauthenticatedRequestException;
 import com.webutils.services.user.UserEntity;
 import com.webutils.services.user.UserService;
+import com.yukthitech.utils.exceptions.InvalidStateException;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.Data;
 import lombok.experimental.Accessors;
 
@@ -29,6 +41,10 @@ public class AuthTokenService
 {
     private static final Logger logger = LogManager.getLogger(AuthTokenService.class);
     
+    private static final String TOKEN_MODE_SIGNED = "signed";
+    
+    private static final String REVOKED_TOKENS = "AuthTokenService.revokedTokenIds";
+    
 	@Data
 	@Accessors(chain = true)
 	public static class TokenDetails
@@ -53,8 +69,14 @@ public class AuthTokenService
     @Autowired
     private ExecutionService executionService;
     
+    @Autowired
+    private ExpiredRecordSweeper expiredRecordSweeper;
+    
     @Autowired
     private CacheFactory cacheFactory;
+    
+    @Autowired
+    private RoleRegistry roleRegistry;
 
     @Value("${session.timeout.seconds:1800}") // 30 minutes
     private long sessionTimeoutSec;
@@ -65,7 +87,66 @@ public class AuthTokenService
     @Value("${session.cleanup.interval.seconds:3600}") // 1 hour
     private long cleanupIntervalSec;
     
+    /**
+     * Token mode - "db" for tokens persisted in auth-token table or "signed" for stateless
+     * tokens, which are validated without db access.
+     */
+    @Value("${session.token.mode:db}")
+    private String tokenMode;
+    
+    /**
+     * Signing keys of signed tokens in format "id1:secret1,id2:secret2". First key is used for signing.
+     */
+    @Value("${session.token.signingKeys:}")
+    private String signingKeys;
+    
+    /**
+     * Revocation of signed tokens is replicated over cache invalidation channel. Without such a channel
+     * startup fails, unless this flag is set (like in single node setups).
+     */
+    @Value("${session.token.localRevocationOnly:false}")
+    private boolean localRevocationOnly;
+    
+    @Value("${session.renew.flush.interval.seconds:10}")
+    private long renewFlushIntervalSec;
+    
+    /**
+     * Max number of tokens renewed by single update, which keeps IN list within db limits.
+     */
+    @Value("${session.renew.flush.batchSize:500}")
+    private int renewFlushBatchSize;
+    
+    @Value("${session.invalidToken.cache.seconds:60}")
+    private long invalidTokenCacheSec;
+    
     private ICache<String, TokenDetails> tokenCache;
+    
+    /**
+     * Recently rejected tokens with rejection reason.
+     */
+    private ICache<String, String> invalidTokens;
+    
+    /**
+     * Renewed expiry times of tokens, yet to be written to db.
+     */
+    private Map<String, Date> pendingRenewals = new ConcurrentHashMap<>();
+    
+    /**
+     * Token loads in progress. Concurrent requests with same token wait on the load of first request,
+     * while db access happens outside of cache locks.
+     */
+    private Map<String, CompletableFuture<TokenDetails>> tokenLoads = new ConcurrentHashMap<>();
+    
+    /**
+     * Ids of signed tokens revoked by logout. Entries are retained for session timeout, after which 
+     * the revoked tokens would have expired anyway.
+     */
+    private ICache<String, Boolean> revokedTokenIds;
+    
+    /**
+     * Codec of signed tokens, null when db tokens are used.
+     */
+    private SignedTokenCodec signedTokenCodec;
 
     @PostConstruct
     private void init()
@@ -73,8 +154,40 @@ public class AuthTokenService
     	tokenCache = cacheFactory.getCache("AuthTokenService.tokenCache", 
     			new CacheConfig<String, TokenDetails>().maxSize(1000));
     	
-        executionService.scheduleRepeatedTask("AuthTokenService.cleanupExpiredTokens", 
-        		this::cleanupExpiredTokens, cleanupIntervalSec, TimeUnit.SECONDS);
+    	invalidTokens = cacheFactory.getCache("AuthTokenService.invalidTokens", 
+    			new CacheConfig<String, String>()
+    				.expireAfterWrite(invalidTokenCacheSec, TimeUnit.SECONDS)
+    				.maxSize(10000));
+    	
+    	if(TOKEN_MODE_SIGNED.equals(tokenMode))
+    	{
+    		logger.info("Using signed session tokens");
+    		signedTokenCodec = new SignedTokenCodec(signingKeys);
+    		
+    		if(!cacheFactory.isInvalidationChannelConfigured())
+    		{
+    			if(!localRevocationOnly)
+    			{
+    				throw new InvalidStateException("Signed session tokens require an ICacheInvalidationChannel bean, so that logouts "
+    						+ "are replicated to all nodes. For single node setups set session.token.localRevocationOnly=true");
+    			}
+    			
+    			logger.warn("No cache invalidation channel is configured. Signed tokens revoked by logout will be "
+    					+ "rejected only on the node where logout happened");
+    		}
+    		
+    		revokedTokenIds = cacheFactory.getCache(REVOKED_TOKENS, 
+    				new CacheConfig<String, Boolean>().expireAfterWrite(sessionTimeoutSec, TimeUnit.SECONDS));
+    		
+    		// revocations done on other nodes
+    		cacheFactory.addBroadcastListener(REVOKED_TOKENS, tokenId -> revokedTokenIds.set((String) tokenId, true));
+    	}
+    	
+        executionService.scheduleRepeatedTask("AuthTokenService.flushRenewals", 
+        		this::flushRenewals, renewFlushIntervalSec, TimeUnit.SECONDS, Level.TRACE);
+        
+        expiredRecordSweeper.register("authTokens", authTokenRepository, "expiresAt", 
+        		authTokenRepository::fetchExpiredTokenIds, authTokenRepository::deleteExpiredTokensUpTo, cleanupIntervalSec);
     }
     
     public UserDetails authenticate(String email, String password, String customSpace)
@@ -103,6 +216,17 @@ public class AuthTokenService
     {
         logger.debug("Generating token [User: {}, Custom Space: {}]", userDetails.getId(), customSpace);
         
+        if(signedTokenCodec != null)
+        {
+        	long now = System.currentTimeMillis();
+        	String token = signedTokenCodec.encode(new SignedTokenClaims(UUID.randomUUID().toString(), userDetails.getId(), 
+        			userDetails.getName(), userDetails.getMailId(), customSpace, userDetails.getRoles(), 
+        			now, now + sessionTimeoutSec * 1000));
+        	
+        	userDetails.setAuthToken(token);
+        	return token;
+        }
+        
         String token = UUID.randomUUID().toString();
         long timeoutSec = sessionTimeoutSec;
 
@@ -119,6 +243,7 @@ public class AuthTokenService
         authTokenRepository.save(authToken);
         
         userDetails.setAuthToken(token);
+        userDetails.setRoleMask(roleRegistry.toMask(userDetails.getRoles()));
 
         // set the token in the user details
         TokenDetails tokenDetails = new TokenDetails()
@@ -136,6 +261,11 @@ public class AuthTokenService
     {
         logger.trace("Getting user details [Token: {}]", token);
         
+        if(signedTokenCodec != null)
+        {
+        	return getSignedTokenUserDetails(token);
+        }
+        
     	TokenDetails cachedTokenDetails = tokenCache.get(token);
 
         if(cachedTokenDetails != null)
@@ -147,40 +277,133 @@ public class AuthTokenService
                 checkAndRenewToken(cachedTokenDetails);
                 return cachedTokenDetails.userDetails;
             }
+            
+            tokenCache.remove(token);
+        }
+        
+        String invalidReason = invalidTokens.get(token);
+        
+        if(invalidReason != null)
+        {
+        	throw new UnauthenticatedRequestException(invalidReason);
         }
 
+        return loadTokenDetailsOnce(token).getUserDetails();
+    }
+    
+    /**
+     * Loads token details and caches them. Concurrent calls with same token wait for single load.
+     */
+    private TokenDetails loadTokenDetailsOnce(String token)
+    {
+    	CompletableFuture<TokenDetails> newLoad = new CompletableFuture<>();
+    	CompletableFuture<TokenDetails> existingLoad = tokenLoads.putIfAbsent(token, newLoad);
+    	
+    	if(existingLoad != null)
+    	{
+    		try
+    		{
+    			return existingLoad.join();
+    		}
+    		catch(CompletionException ex)
+    		{
+    			if(ex.getCause() instanceof RuntimeException cause)
+    			{
+    				throw cause;
+    			}
+    			
+    			throw ex;
+    		}
+    	}
+    	
+    	try
+    	{
+    		TokenDetails tokenDetails = loadTokenDetails(token);
+    		tokenCache.set(token, tokenDetails);
+    		newLoad.complete(tokenDetails);
+    		return tokenDetails;
+    	}
+    	catch(RuntimeException ex)
+    	{
+    		newLoad.completeExceptionally(ex);
+    		throw ex;
+    	}
+    	finally
+    	{
+    		tokenLoads.remove(token, newLoad);
+    	}
+    }
+    
+    /**
+     * Loads token details from db. Invalid and expired tokens are remembered for a short
+     * duration, so that repeated requests with them do not hit the db.
+     */
+    private TokenDetails loadTokenDetails(String token)
+    {
         AuthTokenEntity authToken = authTokenRepository.fetchByToken(token);
 
         if(authToken == null)
         {
+        	invalidTokens.set(token, "Invalid token specified");
             throw new UnauthenticatedRequestException("Invalid token specified");
         }
 
-        if(authToken.getExpiresAt().before(new Date()))
+        // renewal of evicted token may not be flushed yet
+        Date expiresAt = authToken.getExpiresAt();
+        Date pendingExpiresAt = pendingRenewals.get(token);
+        expiresAt = (pendingExpiresAt != null && pendingExpiresAt.after(expiresAt)) ? pendingExpiresAt : expiresAt;
+
+        if(expiresAt.before(new Date()))
         {
+        	invalidTokens.set(token, "Token has expired");
             throw new UnauthenticatedRequestException("Token has expired");
         }
 
         UserDetails userDetails = userService.getUserDetails(authToken.getUser());
+        userDetails.setRoleMask(roleRegistry.toMask(userDetails.getRoles()));
         
-        TokenDetails tokenDetails = new TokenDetails()
+        return new TokenDetails()
         		.setAuthToken(token)
-        		.setAuthTokenExpiresAt(authToken.getExpiresAt())
+        		.setAuthTokenExpiresAt(expiresAt)
         		.setCustomSpace(authToken.getCustomSpace())
         		.setUserDetails(userDetails)
                 .setLastUpdatedOn(authToken.getLastUpdatedOn());
-        
-        tokenCache.set(token, tokenDetails);
-        return userDetails;
     }
 
+    /**
+     * Validates signed token without db access. When the token is older than renew interval, a renewed
+     * token is set on returned user details, which is expected to be sent back to the client.
+     */
+    private UserDetails getSignedTokenUserDetails(String token)
+    {
+    	SignedTokenClaims claims = signedTokenCodec.decode(token);
+    	
+    	if(revokedTokenIds.get(claims.tokenId()) != null)
+    	{
+    		throw new UnauthenticatedRequestException("Token has been revoked");
+    	}
+    	
+    	long now = System.currentTimeMillis();
+    	
+    	if((now - claims.issuedAt()) / 1000 >= renewIntervalSec)
+    	{
+    		token = signedTokenCodec.encode(claims.renew(now, now + sessionTimeoutSec * 1000));
+    	}
+    	
+    	UserDetails userDetails = new UserDetails(claims.userId(), claims.name(), claims.mailId(), claims.customSpace(), token, claims.roles());
+    	userDetails.setRoleMask(roleRegistry.toMask(claims.roles()));
+    	return userDetails;
+    }
+
+    /**
+     * Renews the cached token when renew interval has passed. The db update is queued
+     * and written in batches by {@link #flushRenewals()}.
+     */
     private void checkAndRenewToken(TokenDetails tokenDetails)
     {
         logger.trace("Checking and renewing token [Token: {}]", tokenDetails.getAuthToken());
         
-        String token = tokenDetails.getAuthToken();
         long currentTime = System.currentTimeMillis();
-
         long diff = (currentTime - tokenDetails.getLastUpdatedOn().getTime()) / 1000;
 
         if(diff < renewIntervalSec)
@@ -188,41 +411,94 @@ public class AuthTokenService
             return;
         }
 
-        // cross check the expires at from db to avoid race condition
-        AuthTokenEntity authTokenFromDb = authTokenRepository.fetchByToken(token);
+        Date newExpiresAt = new Date(currentTime + sessionTimeoutSec * 1000);
 
-        if(authTokenFromDb == null || authTokenFromDb.getExpiresAt().before(new Date()))
+        tokenDetails.setAuthTokenExpiresAt(newExpiresAt);
+        tokenDetails.setLastUpdatedOn(new Date(currentTime));
+        
+        // set back, so that renewal is not lost when cache holds copies (like shared tiers)
+        tokenCache.set(tokenDetails.getAuthToken(), tokenDetails);
+        
+        // multiple renewals of same token before flush get coalesced
+        pendingRenewals.put(tokenDetails.getAuthToken(), newExpiresAt);
+    }
+    
+    /**
+     * Writes queued renewals to db in batches of {@link #renewFlushBatchSize}. Within a batch, tokens renewed in the same
+     * second are written by single update, with expiry truncated to seconds.
+     * Renewals of failed batches are queued back for next flush. Tokens which are no more present in db (revoked on
+     * other nodes) are dropped from cache.
+     */
+    @PreDestroy
+    private synchronized void flushRenewals()
+    {
+        Map<String, Date> batch = new HashMap<>();
+        
+        for(String token : pendingRenewals.keySet())
         {
-            throw new UnauthenticatedRequestException("Token has expired");
+        	Date tokenExpiresAt = pendingRenewals.remove(token);
+        	
+        	if(tokenExpiresAt == null)
+        	{
+        		continue;
+        	}
+        	
+        	batch.put(token, tokenExpiresAt);
+        	
+        	if(batch.size() >= renewFlushBatchSize)
+        	{
+        		flushRenewalBatch(batch);
+        		batch = new HashMap<>();
+        	}
         }
-
-        // if token was already renewed
-        if(authTokenFromDb.getLastUpdatedOn().after(tokenDetails.getLastUpdatedOn()))
+        
+        if(!batch.isEmpty())
         {
-            TokenDetails newTokenDetails = new TokenDetails()
-                .setAuthToken(token)
-                .setAuthTokenExpiresAt(authTokenFromDb.getExpiresAt())
-                .setCustomSpace(authTokenFromDb.getCustomSpace())
-                .setUserDetails(tokenDetails.getUserDetails())
-                .setLastUpdatedOn(authTokenFromDb.getLastUpdatedOn());
-            tokenCache.set(token, newTokenDetails);
-            return;
+        	flushRenewalBatch(batch);
         }
-
-        long timeoutSec = sessionTimeoutSec;
-        Date newExpiresAt = new Date(System.currentTimeMillis() + timeoutSec * 1000);
+    }
+    
+    private void flushRenewalBatch(Map<String, Date> batch)
+    {
+        logger.debug("Flushing renewal of {} tokens", batch.size());
+        
+        // tokens are grouped by expiry truncated to seconds, so that each token gets its own expiry 
+        // (short by less than a second), while tokens renewed in same second are written by single update
+        Map<Date, Set<String>> tokensByExpiry = new HashMap<>();
+        batch.forEach((token, expiresAt) -> tokensByExpiry
+        		.computeIfAbsent(new Date(expiresAt.getTime() / 1000 * 1000), key -> new HashSet<>())
+        		.add(token));
+        
+        Set<String> tokens = new HashSet<>(batch.keySet());
         Date now = new Date();
-
-        boolean res = authTokenRepository.updateExpiresAt(token, now, newExpiresAt, now);
-
-        if(!res)
+        
+        try
         {
-            throw new UnauthenticatedRequestException("Failed to renew token");
+        	int updateCount = 0;
+        	
+        	for(Map.Entry<Date, Set<String>> entry : tokensByExpiry.entrySet())
+        	{
+        		updateCount += authTokenRepository.updateExpiresAtOfTokens(entry.getValue(), now, entry.getKey(), now);
+        	}
+        	
+        	if(updateCount >= tokens.size())
+        	{
+        		return;
+        	}
+        	
+        	authTokenRepository.fetchByTokens(tokens).forEach(authToken -> tokens.remove(authToken.getToken()));
         }
-
-        tokenDetails.setAuthTokenExpiresAt(newExpiresAt);
-        tokenDetails.setLastUpdatedOn(now);
-        tokenCache.set(token, tokenDetails);
+        catch(Exception ex)
+        {
+        	logger.error("Failed to flush renewal of {} tokens. They will be retried in next flush", batch.size(), ex);
+        	
+        	// renewals queued after this batch was taken carry later expiry, so they are retained
+        	batch.forEach(pendingRenewals::putIfAbsent);
+        	return;
+        }
+        
+        logger.debug("Dropping {} tokens which are no more available in db", tokens.size());
+        tokens.forEach(tokenCache::remove);
     }
 
     public void revokeToken()
@@ -230,18 +506,17 @@ public class AuthTokenService
         logger.debug("Revoking token");
         
         String token = UserContext.getCurrentUser().getAuthToken();
-        authTokenRepository.deleteByToken(token);
-        tokenCache.remove(token);
-    }
-
-    private void cleanupExpiredTokens()
-    {
-        logger.debug("Cleaning up expired tokens");
-        int deletedCount = authTokenRepository.deleteExpiredTokens(new Date());
-
-        if(deletedCount > 0)
+        
+        if(signedTokenCodec != null)
         {
-            logger.info("Deleted {} expired tokens", deletedCount);
+        	String tokenId = signedTokenCodec.decode(token).tokenId();
+        	revokedTokenIds.set(tokenId, true);
+        	cacheFactory.broadcast(REVOKED_TOKENS, tokenId);
+        	return;
         }
+        
+        pendingRenewals.remove(token);
+        authTokenRepository.deleteByToken(token);
+        tokenCache.remove(token);
     }
 }
@@ -1,11 +1,15 @@
 package com.webutils.services.token;
 
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 
+import com.webutils.services.common.IdQueryResult;
 import com.yukthitech.persistence.ICrudRepository;
 import com.yukthitech.persistence.repository.annotations.Condition;
 import com.yukthitech.persistence.repository.annotations.Field;
 import com.yukthitech.persistence.repository.annotations.Operator;
+import com.yukthitech.persistence.repository.search.SearchQuery;
 
 public interface IAuthTokenRepository extends ICrudRepository<AuthTokenEntity>
 {
@@ -19,5 +23,26 @@ public interface IAuthTokenRepository extends ICrudRepository<AuthTokenEntity>
         @Field("expiresAt") Date newExpiresAt,
         @Field("lastUpdatedOn") Date lastUpdatedOn);
 
+    /**
+     * Renews expiry of specified unexpired tokens in single statement.
+     * @return number of tokens updated
+     */
+    int updateExpiresAtOfTokens(
+        @Condition(value = "token", op = Operator.IN) Collection<String> tokens, 
+        @Condition(value = "expiresAt", op = Operator.GT) Date curTime,
+        @Field("expiresAt") Date newExpiresAt,
+        @Field("lastUpdatedOn") Date lastUpdatedOn);
+
+    List<AuthTokenEntity> fetchByTokens(@Condition(value = "token", op = Operator.IN) Collection<String> tokens);
+
     int deleteExpiredTokens(@Condition(value = "expiresAt", op = Operator.LT) Date curTime);
+
+    /**
+     * Used by sweeper to fetch ids of expired tokens chunk by chunk.
+     */
+    List<IdQueryResult> fetchExpiredTokenIds(SearchQuery query);
+
+    int deleteExpiredTokensUpTo(
+        @Condition(value = "expiresAt", op = Operator.LT) Date curTime,
+        @Condition(value = "id", op = Operator.LE) Long maxId);
 }
@@ -0,0 +1,27 @@
+package com.webutils.services.token;
+
+import java.util.Set;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Claims carried by a signed session token. Short property names keep the token compact.
+ * @param tokenId id of the session, retained across renewals and used for revocation
+ * @param issuedAt time (epoch millis) at which this token was issued
+ * @param expiresAt time (epoch millis) after which this token is invalid
+ */
+record SignedTokenClaims(
+		@JsonProperty("j") String tokenId,
+		@JsonProperty("u") long userId,
+		@JsonProperty("n") String name,
+		@JsonProperty("m") String mailId,
+		@JsonProperty("c") String customSpace,
+		@JsonProperty("r") Set<String> roles,
+		@JsonProperty("i") long issuedAt,
+		@JsonProperty("e") long expiresAt)
+{
+	SignedTokenClaims renew(long issuedAt, long expiresAt)
+	{
+		return new SignedTokenClaims(tokenId, userId, name, mailId, customSpace, roles, issuedAt, expiresAt);
+	}
+}
@@ -0,0 +1,151 @@
+package com.webutils.services.token;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.webutils.services.common.UnauthenticatedRequestException;
+import com.yukthitech.utils.exceptions.InvalidStateException;
+
+/**
+ * Encodes and verifies signed session tokens of format "key-id.payload.signature", where payload is
+ * base64url json of {@link SignedTokenClaims} and signature is HMAC-SHA256 of "key-id.payload".
+ * 
+ * Keys are configured as "id1:secret1,id2:secret2". First key is used for signing and all keys are
+ * accepted for verification, so that keys can be rotated by prepending a new key and dropping the
+ * old one after session timeout.
+ */
+final class SignedTokenCodec
+{
+	private static final String ALGORITHM = "HmacSHA256";
+	
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+	
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+	
+	private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+	
+	/**
+	 * Mac instances are not thread safe, so they are confined per thread for each key.
+	 */
+	private final Map<String, ThreadLocal<Mac>> keys = new LinkedHashMap<>();
+	
+	private final String signingKeyId;
+	
+	SignedTokenCodec(String keySpecs)
+	{
+		if(StringUtils.isBlank(keySpecs))
+		{
+			throw new InvalidStateException("No signing keys are configured for signed session tokens");
+		}
+		
+		for(String keySpec : keySpecs.split(","))
+		{
+			String[] parts = keySpec.trim().split(":", 2);
+			
+			if(parts.length != 2 || StringUtils.isBlank(parts[0]) || parts[1].length() < 32)
+			{
+				throw new InvalidStateException("Invalid signing key specified. Expected format 'id:secret' with secret of at least 32 characters");
+			}
+			
+			SecretKeySpec secretKey = new SecretKeySpec(parts[1].getBytes(StandardCharsets.UTF_8), ALGORITHM);
+			keys.put(parts[0], ThreadLocal.withInitial(() -> newMac(secretKey)));
+		}
+		
+		this.signingKeyId = keys.keySet().iterator().next();
+	}
+	
+	private static Mac newMac(SecretKeySpec secretKey)
+	{
+		try
+		{
+			Mac mac = Mac.getInstance(ALGORITHM);
+			mac.init(secretKey);
+			return mac;
+		}
+		catch(Exception ex)
+		{
+			throw new InvalidStateException("Failed to initialize token signer", ex);
+		}
+	}
+	
+	private byte[] sign(String keyId, String content)
+	{
+		return keys.get(keyId).get().doFinal(content.getBytes(StandardCharsets.US_ASCII));
+	}
+	
+	String encode(SignedTokenClaims claims)
+	{
+		String payload;
+		
+		try
+		{
+			payload = ENCODER.encodeToString(OBJECT_MAPPER.writeValueAsBytes(claims));
+		}
+		catch(Exception ex)
+		{
+			throw new InvalidStateException("Failed to encode token claims", ex);
+		}
+		
+		String content = signingKeyId + "." + payload;
+		return content + "." + ENCODER.encodeToString(sign(signingKeyId, content));
+	}
+	
+	/**
+	 * Verifies signature and expiry of specified token and returns its claims.
+	 */
+	SignedTokenClaims decode(String token)
+	{
+		int firstDot = token.indexOf('.');
+		int lastDot = token.lastIndexOf('.');
+		
+		if(firstDot <= 0 || lastDot <= firstDot)
+		{
+			throw new UnauthenticatedRequestException("Invalid token specified");
+		}
+		
+		String keyId = token.substring(0, firstDot);
+		
+		if(!keys.containsKey(keyId))
+		{
+			throw new UnauthenticatedRequestException("Invalid token specified");
+		}
+		
+		SignedTokenClaims claims;
+		
+		try
+		{
+			byte[] signature = DECODER.decode(token.substring(lastDot + 1));
+			
+			if(!MessageDigest.isEqual(signature, sign(keyId, token.substring(0, lastDot))))
+			{
+				throw new UnauthenticatedRequestException("Invalid token specified");
+			}
+			
+			claims = OBJECT_MAPPER.readValue(DECODER.decode(token.substring(firstDot + 1, lastDot)), SignedTokenClaims.class);
+		}
+		catch(UnauthenticatedRequestException ex)
+		{
+			throw ex;
+		}
+		catch(Exception ex)
+		{
+			throw new UnauthenticatedRequestException("Invalid token specified");
+		}
+		
+		if(claims.expiresAt() < System.currentTimeMillis())
+		{
+			throw new UnauthenticatedRequestException("Token has expired");
+		}
+		
+		return claims;
+	}
+}
@@ -1,11 +1,13 @@
 package com.webutils.services.user;
 
 import java.util.Date;
+import java.util.List;
 
 import com.yukthitech.persistence.ICrudRepository;
 import com.yukthitech.persistence.repository.annotations.Condition;
 import com.yukthitech.persistence.repository.annotations.Field;
 import com.yukthitech.persistence.repository.annotations.Operator;
+import com.yukthitech.persistence.repository.annotations.UpdateFunction;
 
 /**
  * Repository interface for User preference entity operations
@@ -17,6 +19,12 @@ public interface IUserPreferenceRepository extends ICrudRepository<UserPreferenc
     @Field(value = "value")
     UserPreferenceEntity fetchByUserIdAndKey(@Condition("user.id") Long userId, @Condition("key") String key);
 
+    List<UserPreferenceEntity> fetchByUserId(@Condition("user.id") Long userId);
+
+    @UpdateFunction
+    int updatePreferenceValue(@Field("value") Object value, @Field("lastUpdatedTime") Date lastUpdatedTime, 
+        @Condition("user.id") Long userId, @Condition("key") String key);
+
     public int deletePreferences(
         @Condition("key") String key, 
         @Condition(value = "lastUpdatedTime", op = Operator.LT) Date lastUpdatedTime
@@ -1,6 +1,10 @@
 package com.webutils.services.user;
 
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -8,6 +12,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.webutils.cache.CacheConfig;
+import com.webutils.cache.CacheFactory;
+import com.webutils.cache.ICache;
 import com.webutils.common.UserDetails;
 import com.webutils.services.auth.UserContext;
 import com.webutils.services.common.IWebutilsService;
@@ -15,12 +22,24 @@ import com.webutils.services.common.InvalidRequestException;
 import com.webutils.services.common.UnauthenticatedRequestException;
 import com.yukthitech.persistence.utils.PasswordEncryptor;
 
+import jakarta.annotation.PostConstruct;
+
 @Service
 public class UserService
 {
     private static final Logger logger = LogManager.getLogger(UserService.class);
 
     private static final String OTP_LOGIN_FAILURES_PREF = "$otpLoginFailures";
+    
+    /**
+     * Prefix of internal preference keys.
+     */
+    private static final String INTERNAL_PREF_PREFIX = "$";
+    
+    /**
+     * Name used to broadcast users whose preferences are changed, so that other nodes drop cached preferences.
+     */
+    private static final String PREFERENCE_CHANGES = "UserService.preferenceChanges";
 
     @Value("${session.timeout.seconds:1800}")
     private int sessionTimeoutSec;
@@ -36,6 +55,48 @@ public class UserService
     
     @Autowired
     private IWebutilsService webutilsService;
+    
+    @Autowired
+    private CacheFactory cacheFactory;
+    
+    @Value("${webutils.user.preference.cacheSec:600}")
+    private long preferenceCacheSec;
+    
+    /**
+     * Client preference values of users, keyed by preference key. All preferences of a user are
+     * loaded in single query. Changes are written to db immediately and cached preferences of the user
+     * are dropped on all nodes. Internal preferences (OTP details, failure counters) are used for
+     * rate limiting, so they are not cached and are read from db on each use.
+     */
+    private ICache<Long, Map<String, Object>> preferenceCache;
+    
+    @PostConstruct
+    private void init()
+    {
+        preferenceCache = cacheFactory.getCache("UserService.preferenceCache", 
+            new CacheConfig<Long, Map<String, Object>>()
+                .expireAfterWrite(preferenceCacheSec, TimeUnit.SECONDS)
+                .maxSize(10000));
+        
+        // preference changes done on other nodes
+        cacheFactory.addBroadcastListener(PREFERENCE_CHANGES, userId -> 
+        {
+            if(userId == null)
+            {
+                preferenceCache.clear();
+            }
+            else
+            {
+                preferenceCache.remove(((Number) userId).longValue());
+            }
+        });
+        
+        if(!cacheFactory.isInvalidationChannelConfigured())
+        {
+            logger.info("No cache invalidation channel is configured. Preferences changed on other nodes will be "
+                + "reflected after {} seconds", preferenceCacheSec);
+        }
+    }
 
     public long createUser(UserEntity user)
     {
@@ -174,13 +235,47 @@ public class UserService
         }
     }
 
+    private static boolean isInternalPreference(String key)
+    {
+        return key.startsWith(INTERNAL_PREF_PREFIX);
+    }
+
+    /**
+     * Fetches value of specified preference. Internal preference values are read from db on each
+     * call, so returned values can be modified by callers.
+     */
     public Object getUserPreference(Long userId, String key)
     {
         logger.debug("Getting user preference [User: {}, Key: {}]", userId, key);
         
+        if(!isInternalPreference(key))
+        {
+            return getUserPreferences(userId).get(key);
+        }
+        
         UserPreferenceEntity userPreference = userPreferenceRepository.fetchByUserIdAndKey(userId, key);
         return userPreference == null ? null : userPreference.getValue();
     }
+    
+    private Map<String, Object> getUserPreferences(Long userId)
+    {
+        return preferenceCache.computeIfAbsent(userId, () -> loadUserPreferences(userId));
+    }
+    
+    private Map<String, Object> loadUserPreferences(Long userId)
+    {
+        Map<String, Object> preferences = new HashMap<>();
+        
+        for(UserPreferenceEntity pref : userPreferenceRepository.fetchByUserId(userId))
+        {
+            if(!isInternalPreference(pref.getKey()) && pref.getValue() != null)
+            {
+                preferences.put(pref.getKey(), pref.getValue());
+            }
+        }
+        
+        return Collections.unmodifiableMap(preferences);
+    }
 
     /**
      * Sets the user preference for the current user.
@@ -197,29 +292,30 @@ public class UserService
         setUserPreference(userDetails.getId(), key, value);
     }
 
+    /**
+     * Sets the user preference in db. Existing preference is updated by a single statement, and is inserted
+     * only when not present. For client preferences, cached preferences of the user are dropped on all nodes.
+     */
     public void setUserPreference(Long userId, String key, Object value)
     {
         logger.debug("Setting user preference [User: {}, Key: {}, Value: {}]", userId, key, value);
-
-        UserPreferenceEntity userPreference = userPreferenceRepository.fetchByUserIdAndKey(userId, key);
-
-        if(userPreference == null)
+        
+        Date now = new Date();
+        
+        if(userPreferenceRepository.updatePreferenceValue(value, now, userId, key) == 0)
         {
-            userPreference = new UserPreferenceEntity();
+            UserPreferenceEntity userPreference = new UserPreferenceEntity();
             userPreference.setUser(new UserEntity(userId));
-        }
-
-        userPreference.setKey(key);
-        userPreference.setValue(value);
-
-        if(userPreference.getId() == null)
-        {
+            userPreference.setKey(key);
+            userPreference.setValue(value);
+            userPreference.setLastUpdatedTime(now);
             userPreferenceRepository.save(userPreference);
         }
-        else
+        
+        if(!isInternalPreference(key))
         {
-            userPreference.setLastUpdatedTime(new Date());
-            userPreferenceRepository.update(userPreference);
+            preferenceCache.remove(userId);
+            cacheFactory.broadcast(PREFERENCE_CHANGES, userId);
         }
     }
 
@@ -229,5 +325,11 @@ public class UserService
 
         long deletedCount = userPreferenceRepository.deletePreferences(key, beforeDate);
         logger.debug("Deleted {} old preferences [Key: {}]", deletedCount, key);
+        
+        if(deletedCount > 0 && !isInternalPreference(key))
+        {
+            preferenceCache.clear();
+            cacheFactory.broadcast(PREFERENCE_CHANGES, null);
+        }
     }
 }
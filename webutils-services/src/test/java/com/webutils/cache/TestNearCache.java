@@ -0,0 +1,86 @@
+package com.webutils.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests near caches of two nodes sharing in-memory store and invalidation channel.
+ */
+public class TestNearCache
+{
+	private static final String CACHE_NAME = "testCache";
+
+	private InMemorySharedCacheStore sharedStore;
+
+	private NearCache<String, String> nodeA;
+
+	private NearCache<String, String> nodeB;
+
+	@BeforeEach
+	public void setup()
+	{
+		sharedStore = new InMemorySharedCacheStore();
+		InMemoryInvalidationChannel channel = new InMemoryInvalidationChannel();
+
+		nodeA = new NearCache<>(new CacheConfig<String, String>().setName(CACHE_NAME), "nodeA", sharedStore, channel);
+		nodeB = new NearCache<>(new CacheConfig<String, String>().setName(CACHE_NAME), "nodeB", sharedStore, channel);
+
+		channel.subscribe(nodeA::onInvalidation);
+		channel.subscribe(nodeB::onInvalidation);
+	}
+
+	@Test
+	public void testPutGet()
+	{
+		nodeA.set("key", "value");
+
+		assertEquals("value", nodeA.get("key"));
+		assertEquals("value", sharedStore.get(CACHE_NAME, "key"));
+
+		// other node should get the value from shared store
+		assertEquals("value", nodeB.get("key"));
+		assertNull(nodeB.get("missingKey"));
+	}
+
+	@Test
+	public void testCrossNodeInvalidation()
+	{
+		nodeA.set("key", "value1");
+
+		// loads near copy on node b
+		assertEquals("value1", nodeB.get("key"));
+
+		nodeA.set("key", "value2");
+		assertEquals("value2", nodeB.get("key"));
+
+		nodeA.remove("key");
+		assertNull(nodeB.get("key"));
+
+		nodeB.set("key1", "value1");
+		nodeB.set("key2", "value2");
+		assertEquals("value1", nodeA.get("key1"));
+		assertEquals("value2", nodeA.get("key2"));
+
+		nodeB.clear();
+		assertNull(nodeA.get("key1"));
+		assertNull(nodeA.get("key2"));
+	}
+
+	@Test
+	public void testOwnInvalidationIgnored()
+	{
+		nodeA.set("key", "value");
+
+		// remove from shared store directly, so that value can be served only by near tiers
+		sharedStore.remove(CACHE_NAME, "key");
+
+		nodeA.onInvalidation(new CacheInvalidation("nodeA", CACHE_NAME, "key"));
+		assertEquals("value", nodeA.get("key"));
+
+		nodeA.onInvalidation(new CacheInvalidation("nodeB", CACHE_NAME, "key"));
+		assertNull(nodeA.get("key"));
+	}
+}
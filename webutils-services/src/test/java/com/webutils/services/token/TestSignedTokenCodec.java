@@ -0,0 +1,138 @@
+package com.webutils.services.token;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.webutils.services.common.UnauthenticatedRequestException;
+import com.yukthitech.utils.exceptions.InvalidStateException;
+
+public class TestSignedTokenCodec
+{
+	private static final String KEY1 = "k1:0123456789abcdef0123456789abcdef";
+
+	private static final String KEY2 = "k2:fedcba9876543210fedcba9876543210";
+
+	private static SignedTokenClaims newClaims(long expiresAt)
+	{
+		return new SignedTokenClaims("token-1", 10, "User", "user@test.com", "space", Set.of("ADMIN"),
+				System.currentTimeMillis(), expiresAt);
+	}
+
+	private static SignedTokenClaims newClaims()
+	{
+		return newClaims(System.currentTimeMillis() + 60_000);
+	}
+
+	@Test
+	public void testEncodeDecode()
+	{
+		SignedTokenCodec codec = new SignedTokenCodec(KEY1);
+		SignedTokenClaims claims = newClaims();
+
+		String token = codec.encode(claims);
+
+		assertEquals(claims, codec.decode(token));
+		assertEquals("k1", token.substring(0, token.indexOf('.')));
+	}
+
+	@Test
+	public void testTamperedPayload()
+	{
+		SignedTokenCodec codec = new SignedTokenCodec(KEY1);
+		String token = codec.encode(newClaims());
+		String[] parts = token.split("\\.");
+
+		// payload of same structure with different user, keeping original signature
+		String payload = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8).replace("\"u\":10", "\"u\":11");
+		String tamperedToken = parts[0] + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8))
+				+ "." + parts[2];
+
+		assertThrows(UnauthenticatedRequestException.class, () -> codec.decode(tamperedToken));
+
+		// tampered signature
+		String tamperedSignature = parts[0] + "." + parts[1] + "." + parts[2].substring(1) + (parts[2].charAt(0) == 'A' ? 'B' : 'A');
+		assertThrows(UnauthenticatedRequestException.class, () -> codec.decode(tamperedSignature));
+	}
+
+	@Test
+	public void testUnknownKeyId()
+	{
+		SignedTokenCodec codec = new SignedTokenCodec(KEY1);
+		String token = new SignedTokenCodec(KEY2).encode(newClaims());
+
+		assertThrows(UnauthenticatedRequestException.class, () -> codec.decode(token));
+
+		// known key id with signature of other key
+		String renamedToken = "k1" + token.substring(token.indexOf('.'));
+		assertThrows(UnauthenticatedRequestException.class, () -> codec.decode(renamedToken));
+	}
+
+	@Test
+	public void testRotatedKey()
+	{
+		SignedTokenClaims claims = newClaims();
+		String oldToken = new SignedTokenCodec(KEY1).encode(claims);
+
+		// new key prepended, old key still accepted while new tokens get signed by new key
+		SignedTokenCodec rotatedCodec = new SignedTokenCodec(KEY2 + "," + KEY1);
+		assertEquals(claims, rotatedCodec.decode(oldToken));
+
+		String newToken = rotatedCodec.encode(claims);
+		assertEquals("k2", newToken.substring(0, newToken.indexOf('.')));
+		assertEquals(claims, rotatedCodec.decode(newToken));
+
+		// old key dropped
+		SignedTokenCodec newCodec = new SignedTokenCodec(KEY2);
+		assertEquals(claims, newCodec.decode(newToken));
+		assertThrows(UnauthenticatedRequestException.class, () -> newCodec.decode(oldToken));
+	}
+
+	@Test
+	public void testExpiredToken()
+	{
+		SignedTokenCodec codec = new SignedTokenCodec(KEY1);
+		String token = codec.encode(newClaims(System.currentTimeMillis() - 1000));
+
+		UnauthenticatedRequestException ex = assertThrows(UnauthenticatedRequestException.class, () -> codec.decode(token));
+		assertEquals("Token has expired", ex.getMessage());
+	}
+
+	@Test
+	public void testMalformedToken()
+	{
+		SignedTokenCodec codec = new SignedTokenCodec(KEY1);
+		String token = codec.encode(newClaims());
+		String[] parts = token.split("\\.");
+
+		String[] malformedTokens = {
+			"",
+			"abc",
+			".abc.def",
+			"k1.abc",
+			"k1..",
+			"k1.%%%." + parts[2],
+			parts[0] + "." + parts[1] + ".%%%",
+			parts[0] + ".e30." + parts[2],
+			parts[0] + "." + Base64.getUrlEncoder().encodeToString("not-json".getBytes(StandardCharsets.UTF_8)) + "." + parts[2]
+		};
+
+		for(String malformedToken : malformedTokens)
+		{
+			assertThrows(UnauthenticatedRequestException.class, () -> codec.decode(malformedToken), "Token: " + malformedToken);
+		}
+	}
+
+	@Test
+	public void testInvalidKeys()
+	{
+		assertThrows(InvalidStateException.class, () -> new SignedTokenCodec(""));
+		assertThrows(InvalidStateException.class, () -> new SignedTokenCodec("k1:short"));
+		assertThrows(InvalidStateException.class, () -> new SignedTokenCodec("0123456789abcdef0123456789abcdef"));
+	}
+}